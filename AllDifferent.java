@@ -0,0 +1,144 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Description: a rule that no two squares in a group can have the same number.
+ * Used for every row, column and box of a classic puzzle, and for the diagonals
+ * of a diagonal sudoku. Rows, columns and boxes are highlighted the same colors
+ * as before (pink, yellow and green); other groups are highlighted square by
+ * square in orange.
+ *
+ */
+
+import java.awt.Color;
+
+public class AllDifferent implements Constraint {
+    
+    // kinds of groups
+    public static final int ROW = 0;
+    public static final int COLUMN = 1;
+    public static final int BOX = 2;
+    public static final int OTHER = 3;
+    
+    // highlight colors, made once instead of every frame
+    public static final Color ROW_COLOR = new Color(252, 95, 235, 100);
+    public static final Color COLUMN_COLOR = new Color(255, 217, 87, 100);
+    public static final Color BOX_COLOR = new Color(87, 255, 138, 100);
+    public static final Color OTHER_COLOR = new Color(255, 140, 0, 100);
+    
+    // fields
+    private int[] cells;
+    private int kind;
+    
+    // constructor
+    public AllDifferent(int[] cells, int kind) {
+        this.cells = cells;
+        this.kind = kind;
+    }
+    
+    /**
+    * Inputs: row (int)
+    * Outputs: rule for that row (AllDifferent)
+    */
+    public static AllDifferent row(int row) {
+        int[] cells = new int[6];
+        for (int j = 0; j < 6; j++) {
+            cells[j] = row * 6 + j;
+        }
+        return new AllDifferent(cells, ROW);
+    }
+    
+    /**
+    * Inputs: column (int)
+    * Outputs: rule for that column (AllDifferent)
+    */
+    public static AllDifferent column(int col) {
+        int[] cells = new int[6];
+        for (int i = 0; i < 6; i++) {
+            cells[i] = i * 6 + col;
+        }
+        return new AllDifferent(cells, COLUMN);
+    }
+    
+    /**
+    * Inputs: top row and left column of the 2x3 box (int)
+    * Outputs: rule for that box (AllDifferent)
+    */
+    public static AllDifferent box(int row, int col) {
+        int[] cells = new int[6];
+        for (int k = 0; k < 6; k++) {
+            cells[k] = (row + k / 3) * 6 + col + k % 3;
+        }
+        return new AllDifferent(cells, BOX);
+    }
+    
+    /**
+    * Inputs: true for the diagonal from the top left, false for the one from
+              the top right (boolean)
+    * Outputs: rule for that diagonal (AllDifferent)
+    */
+    public static AllDifferent diagonal(boolean fromTopLeft) {
+        int[] cells = new int[6];
+        for (int i = 0; i < 6; i++) {
+            if (fromTopLeft) {
+                cells[i] = i * 6 + i;
+            }
+            else {
+                cells[i] = i * 6 + 5 - i;
+            }
+        }
+        return new AllDifferent(cells, OTHER);
+    }
+    
+    public int[] getCells() {
+        return this.cells;
+    }
+    
+    public boolean isViolated(int[] values) {
+        int seen = 0;
+        for (int i = 0; i < this.cells.length; i++) {
+            int digit = values[this.cells[i]];
+            if (digit != 0) {
+                if ((seen & (1 << digit)) != 0) {
+                    return true;
+                }
+                seen |= 1 << digit;
+            }
+        }
+        return false;
+    }
+    
+    public int allowed(int cell, int[] values) {
+        int used = 0;
+        for (int i = 0; i < this.cells.length; i++) {
+            if (this.cells[i] != cell) {
+                used |= 1 << values[this.cells[i]];
+            }
+        }
+        return ~used & 0x7e;
+    }
+    
+    public void highlight(Canvas canvas) {
+        int first = this.cells[0];
+        if (this.kind == ROW) {
+            canvas.setPenColor(ROW_COLOR);
+            canvas.filledRectangle(3, first / 6 + 0.5, 3, 0.5);
+        }
+        else if (this.kind == COLUMN) {
+            canvas.setPenColor(COLUMN_COLOR);
+            canvas.filledRectangle(first % 6 + 0.5, 3, 0.5, 3);
+        }
+        else if (this.kind == BOX) {
+            canvas.setPenColor(BOX_COLOR);
+            canvas.filledRectangle(first % 6 + 1.5, first / 6 + 1, 1.5, 1);
+        }
+        else {
+            canvas.setPenColor(OTHER_COLOR);
+            for (int i = 0; i < this.cells.length; i++) {
+                canvas.filledRectangle(this.cells[i] % 6 + 0.5, 
+                                       this.cells[i] / 6 + 0.5, 0.5, 0.5);
+            }
+        }
+    }
+}
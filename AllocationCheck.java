@@ -0,0 +1,312 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Execution: java AllocationCheck [input sudoku table] [script]
+ * Plays the puzzle once on a new board through the same methods drawGrid() uses
+ * and prints how much memory each kind of frame allocated. Ends with an error
+ * (exit code 1) if any frame allocated memory. A script uses the format of
+ * AutoPlayer, plus "idle" lines for frames without input; without one, the
+ * game types a wrong number, another key and then the right number in every
+ * empty square, presses the mouse, tries a guess ('g' and 'u') halfway
+ * through, and presses RESET at the end. Adding -Dsudoku.render=true after
+ * java also draws every frame on the screen.
+ *
+ * Description: a class that checks that the game loop creates no new objects
+ * once it is running. Every object a frame creates has to be cleaned up by the
+ * garbage collector later, and a long enough pause for that shows up as a
+ * stutter in the game. A new board makes the spare copies and the guess
+ * snapshot it needs in its constructor, and labels are drawn from constant
+ * Strings, so no frame should allocate at all, not even in the first game.
+ *
+ * Memory is measured with the JVM's count of bytes allocated by the current
+ * thread, read before and after each frame. Every frame of the checked game
+ * must allocate 0 bytes, 'g' and 'u' included. Before it, PRIMING_GAMES games
+ * are played on another board that is then dropped, so nothing of it is reused.
+ * They only warm up the JVM: the first time the JIT compiler compiles a method
+ * of a class, the JVM makes the class's String constants on the thread that
+ * called it, which would otherwise show up as a few bytes in a random frame.
+ *
+ * Every frame is drawn on NO_DRAWING, a Canvas that ignores every call, so the
+ * memory used by the board's own drawing code (drawFrame(), the boxes and the
+ * rules' highlights) is counted and checked like the rest of the frame, with or
+ * without -Dsudoku.render. PennDraw itself makes new objects inside its
+ * methods (for example a shape for every rectangle, an ImageIcon for every
+ * picture and a font when the font size is set), and the game has no way around
+ * that. So when rendering, the frame is also drawn on the screen and the extra
+ * memory that took is printed as PennDraw's share, but not checked.
+ *
+ */
+
+import java.awt.Color;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+
+public class AllocationCheck {
+
+    // draws nothing, so only the board's own drawing code is measured
+    private static final Canvas NO_DRAWING = new Canvas() {
+        public void setPenColor(Color color) {
+        }
+
+        public void setFontSize(double pointSize) {
+        }
+
+        public void filledRectangle(double x, double y, double halfWidth,
+                                    double halfHeight) {
+        }
+
+        public void text(double x, double y, String text) {
+        }
+
+        public void picture(double x, double y, String filename) {
+        }
+
+        public void picture(double x, double y, String filename, double width,
+                            double height) {
+        }
+    };
+
+    // games played on a board that is thrown away before the checked game
+    private static final int PRIMING_GAMES = 200;
+    // at most this many allocating frames are printed
+    private static final int MAX_PRINTED = 20;
+
+    // kinds of frames
+    private static final int IDLE = 0;
+    private static final int NUMBER_KEY = 1;
+    private static final int OTHER_KEY = 2;
+    private static final int CLICK = 3;
+    private static final String[] KIND_NAMES = {"no input", "number key",
+                                                "other key", "mouse press"};
+
+    // fields
+    private com.sun.management.ThreadMXBean threads;
+    private SudokuGrid board;
+    private boolean render;
+    private long[] frames;
+    private long[] allocatingFrames;
+    private long[] bytes;
+    private long drawBytes;
+    private long screenBytes;
+    private int printed;
+
+    // constructor
+    public AllocationCheck(int[][] initial, boolean render) {
+        this.threads = (com.sun.management.ThreadMXBean)
+            ManagementFactory.getThreadMXBean();
+        if (this.threads.isThreadAllocatedMemorySupported() == false) {
+            throw new IllegalStateException("This JVM cannot count allocated bytes");
+        }
+        this.threads.setThreadAllocatedMemoryEnabled(true);
+        this.board = new SudokuGrid(initial);
+        this.render = render;
+        this.frames = new long[KIND_NAMES.length];
+        this.allocatingFrames = new long[KIND_NAMES.length];
+        this.bytes = new long[KIND_NAMES.length];
+        this.drawBytes = 0;
+        this.screenBytes = 0;
+        this.printed = 0;
+    }
+
+    // play one game on a new board, check it, and print the results
+    public static void main(String[] args) {
+        int[][] initial = SudokuGrid.readInFile(args[0]);
+        String[] script;
+        if (args.length > 1) {
+            script = new In(args[1]).readAll().split("\n");
+        }
+        else {
+            script = defaultScript(initial);
+        }
+        boolean render = Boolean.getBoolean("sudoku.render");
+        if (render) {
+            PennDraw.setCanvasSize(SudokuGrid.CANVAS_WIDTH, SudokuGrid.CANVAS_HEIGHT);
+            PennDraw.setXscale(-.5, 6.5);
+            PennDraw.setYscale(6.5, -.5);
+            PennDraw.enableAnimation(1000);
+        }
+        // the game draws these before its first frame too
+        SudokuGrid.prepareImages(SudokuGrid.CANVAS_WIDTH, SudokuGrid.CANVAS_HEIGHT);
+
+        // parse the script once, so reading it is not counted
+        int n = script.length;
+        int[] kinds = new int[n];
+        char[] keys = new char[n];
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            String[] parts = script[i].trim().split(" +");
+            kinds[i] = -1;
+            if (parts[0].equals("idle")) {
+                kinds[i] = IDLE;
+            }
+            else if (parts[0].equals("key") && parts.length == 4) {
+                keys[i] = parts[1].charAt(0);
+                xs[i] = Double.parseDouble(parts[2]);
+                ys[i] = Double.parseDouble(parts[3]);
+                kinds[i] = OTHER_KEY;
+                if (keys[i] >= '1' && keys[i] <= '6') {
+                    kinds[i] = NUMBER_KEY;
+                }
+            }
+            else if (parts[0].equals("click") && parts.length == 3) {
+                xs[i] = Double.parseDouble(parts[1]);
+                ys[i] = Double.parseDouble(parts[2]);
+                kinds[i] = CLICK;
+            }
+        }
+
+        // only the JVM is warmed up: this board and its spares are dropped
+        AllocationCheck primer = new AllocationCheck(initial, false);
+        primer.printed = MAX_PRINTED;
+        for (int g = 0; g < PRIMING_GAMES; g++) {
+            primer.play(kinds, keys, xs, ys);
+        }
+        AllocationCheck check = new AllocationCheck(initial, render);
+        check.play(kinds, keys, xs, ys);
+        if (check.printResults() == false) {
+            System.exit(1);
+        }
+    }
+
+    /**
+    * Inputs: initial values (int[][])
+    * Outputs: lines of the built-in script (String[])
+    * Description: a game that visits every kind of frame and ends solved and
+                   then RESET, so the next game starts from the same board
+    */
+    private static String[] defaultScript(int[][] initial) {
+        int[][] solution = new SudokuSolver().solve(initial);
+        if (solution == null) {
+            throw new IllegalArgumentException("Puzzle has no solution");
+        }
+        ArrayList<String> empty = new ArrayList<String>();
+        ArrayList<Integer> wrong = new ArrayList<Integer>();
+        ArrayList<Integer> right = new ArrayList<Integer>();
+        for (int k = 0; k < 36; k++) {
+            int row = k / 6;
+            int col = k % 6;
+            if (initial[row][col] == 0) {
+                empty.add((col + 0.5) + " " + (row + 0.5));
+                wrong.add(solution[row][col] % 6 + 1);
+                right.add(solution[row][col]);
+            }
+        }
+        ArrayList<String> lines = new ArrayList<String>();
+        for (int i = 0; i < empty.size(); i++) {
+            String where = empty.get(i);
+            lines.add("idle");
+            lines.add("key " + wrong.get(i) + " " + where);
+            lines.add("key x " + where);
+            lines.add("key 0 " + where);
+            lines.add("key " + right.get(i) + " " + where);
+            lines.add("key " + right.get(i) + " -0.3 3");
+            lines.add("click 3 3");
+            // halfway, guess wrong in this square and the first one, then undo
+            if (i == empty.size() / 2) {
+                lines.add("key g 0 0");
+                lines.add("key " + wrong.get(i) + " " + where);
+                lines.add("key " + wrong.get(0) + " " + empty.get(0));
+                lines.add("idle");
+                lines.add("key u 0 0");
+            }
+        }
+        lines.add("click 6 6.3");
+        return lines.toArray(new String[lines.size()]);
+    }
+
+    /**
+    * Inputs: kind, key and mouse position of each frame of the script (int[],
+              char[], double[], double[])
+    * Outputs: void
+    * Description: plays the script once on this check's board
+    */
+    private void play(int[] kinds, char[] keys, double[] xs, double[] ys) {
+        for (int i = 0; i < kinds.length; i++) {
+            if (kinds[i] != -1) {
+                this.frame(kinds[i], keys[i], xs[i], ys[i], i);
+            }
+        }
+    }
+
+    /**
+    * Inputs: kind of frame (int), key (char), mouse position (double), frame
+              number (int)
+    * Outputs: void
+    * Description: runs one frame like drawGrid() and counts what it allocated
+    */
+    private void frame(int kind, char c, double mouseX, double mouseY,
+                       int frame) {
+        long start = this.threads.getCurrentThreadAllocatedBytes();
+        this.board.drawFrame(NO_DRAWING);
+        long drawn = this.threads.getCurrentThreadAllocatedBytes();
+        if (this.render) {
+            this.board.drawFrame();
+        }
+        long updateStart = this.threads.getCurrentThreadAllocatedBytes();
+        if (kind == NUMBER_KEY || kind == OTHER_KEY) {
+            this.board.typeKey(c, mouseX, mouseY);
+        }
+        else if (kind == CLICK) {
+            this.board.clickMouse(mouseX, mouseY);
+        }
+        this.board.isSolved();
+        long end = this.threads.getCurrentThreadAllocatedBytes();
+        if (this.render) {
+            PennDraw.advance();
+        }
+
+        // the board's drawing code is checked, PennDraw's share is not
+        long allocated = (drawn - start) + (end - updateStart);
+        this.drawBytes += drawn - start;
+        this.screenBytes += updateStart - drawn;
+        this.frames[kind]++;
+        this.bytes[kind] += allocated;
+        if (allocated > 0) {
+            this.allocatingFrames[kind]++;
+            if (this.printed < MAX_PRINTED) {
+                System.out.println("frame " + frame + " (" + KIND_NAMES[kind] +
+                                   "): " + allocated + " bytes");
+                this.printed++;
+            }
+        }
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: true if no frame allocated (boolean)
+    */
+    private boolean printResults() {
+        System.out.println("Checked one game on a new board, from its first frame");
+        long failures = 0;
+        for (int kind = 0; kind < KIND_NAMES.length; kind++) {
+            System.out.println("  " + KIND_NAMES[kind] + ": " + this.frames[kind] +
+                               " frames, " + this.allocatingFrames[kind] +
+                               " allocated, " + this.bytes[kind] + " bytes");
+            failures += this.allocatingFrames[kind];
+        }
+        long frames = Math.max(1, this.totalFrames());
+        System.out.println("  board's drawing code (included above): " +
+                           this.drawBytes / frames + " bytes per frame");
+        if (this.render) {
+            System.out.println("  PennDraw, drawing on the screen (not checked): " +
+                               this.screenBytes / frames + " bytes per frame");
+        }
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " frames allocated memory");
+            return false;
+        }
+        System.out.println("PASSED: no frame allocated memory");
+        return true;
+    }
+
+    private long totalFrames() {
+        long total = 0;
+        for (int kind = 0; kind < KIND_NAMES.length; kind++) {
+            total += this.frames[kind];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,664 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Execution: java AnnealingSolver [corpus file or box size] [number of runs]
+ * With a corpus file (see PuzzleReader) every puzzle in it is solved. With a
+ * box size n instead, one puzzle of size n*n x n*n is made up (a shuffled
+ * solved board with half the squares emptied) and solved. Each puzzle is
+ * solved by several runs at the same time (default one per core) and the
+ * program prints how long the first one took to get there.
+ *
+ * Description: a class that solves puzzles of any size by simulated annealing
+ * instead of backtracking. Backtracking (SudokuSolver) is fast on 6x6 boards
+ * but can take far too long on very big ones; annealing does not search every
+ * possibility, it keeps improving one full guess until no rule is broken.
+ *
+ * First, empty squares that can only hold one number are filled in and treated
+ * like givens. Then every box is filled with the numbers it is missing, so
+ * boxes never have a repeat number. A step swaps two squares of one box that
+ * were not given, so boxes stay that way; only rows and columns can have
+ * repeats. The cost of a board is the number of repeats: for every row and
+ * column, how many of its numbers are there more than once. The class keeps a
+ * count of each number in each row and column, so the change in cost of a swap
+ * (at most two rows and two columns change) is found in constant time without
+ * looking at the board.
+ *
+ * A swap that lowers the cost is always made. One that raises it is made with
+ * a chance that gets smaller as the temperature goes down, which lets a run get
+ * out of a spot where every swap is worse. If the best cost has not improved
+ * for STUCK_CHAINS rounds, the run starts over from a new random fill (a
+ * restart). Runs with different random seeds get stuck in different places, so
+ * race() runs several of them at once and the first to finish stops the rest,
+ * like SudokuSolver.portfolio(). Givens that repeat a number, or that leave a
+ * square with no number it can hold, are rejected before any run starts, since
+ * annealing would never get such a board to cost 0.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AnnealingSolver {
+
+    // temperature is multiplied by this after every round of swaps
+    private static final double COOLING = 0.99;
+    // rounds without a new best cost before a restart
+    private static final int STUCK_CHAINS = 400;
+    // the stop flag and the time limit are checked this often (a power of 2)
+    private static final int CHECK_EVERY = 4096;
+
+    // fields (settings)
+    private int boxRows;
+    private int boxCols;
+    private int size;
+    private Random random;
+    private AtomicBoolean stop;
+    private boolean timed;
+    private long deadline;
+
+    // fields (search state), squares are numbered in row order
+    private int[] board;
+    private boolean[] given;
+    private int[][] boxFree;
+    private int[] rowCount;
+    private int[] colCount;
+    private int cost;
+    private long iterations;
+    private int restarts;
+    private long nanos;
+
+    // constructor
+    public AnnealingSolver(int boxRows, int boxCols, long seed) {
+        if (boxRows < 1 || boxCols < 1) {
+            throw new IllegalArgumentException("Box size must be at least 1x1");
+        }
+        this.boxRows = boxRows;
+        this.boxCols = boxCols;
+        this.size = boxRows * boxCols;
+        this.random = new Random(seed);
+    }
+
+    // getters, describing the last call to solve()
+    public long getIterations() {
+        return this.iterations;
+    }
+
+    public int getRestarts() {
+        return this.restarts;
+    }
+
+    public double getMillis() {
+        return this.nanos / 1e6;
+    }
+
+    /**
+    * Inputs: initial values with 0 for empty squares (int[][])
+    * Outputs: the solution (int[][])
+    * Description: anneals until the cost is 0, starting over whenever it
+                   gets stuck. Throws an exception if the givens break a rule.
+    */
+    public int[][] solve(int[][] puzzle) {
+        return this.solve(puzzle, new AtomicBoolean(false), false, 0);
+    }
+
+    /**
+    * Inputs: initial values (int[][]), flag that stops the run (AtomicBoolean),
+              whether there is a time limit (boolean), System.nanoTime() to
+              stop at (long)
+    * Outputs: the solution, or null if the run was stopped first (int[][])
+    * Description: method overloading, solves until the flag is set or the
+                   time limit is passed
+    */
+    private int[][] solve(int[][] puzzle, AtomicBoolean flag, boolean timed,
+                          long deadline) {
+        long start = System.nanoTime();
+        this.stop = flag;
+        this.timed = timed;
+        this.deadline = deadline;
+        this.load(puzzle);
+        this.iterations = 0;
+        this.restarts = 0;
+        boolean solved = false;
+        while (solved == false && this.isStopped() == false) {
+            this.fillBoxes();
+            solved = this.anneal();
+            if (solved == false) {
+                this.restarts++;
+            }
+        }
+        this.nanos = System.nanoTime() - start;
+        if (solved == false) {
+            return null;
+        }
+        int[][] solution = new int[this.size][this.size];
+        for (int k = 0; k < this.board.length; k++) {
+            solution[k / this.size][k % this.size] = this.board[k];
+        }
+        return solution;
+    }
+
+    /**
+    * Inputs: initial values (int[][]), solvers to run (AnnealingSolver[]), an
+              array of length 1 for the solution (int[][][]), time limit in
+              milliseconds (long)
+    * Outputs: index of the solver that finished first, -1 if none did before
+               the time limit (int)
+    * Description: runs every solver on its own thread. The first one to finish
+                   stops the rest; its solution is in solution[0]. Returns only
+                   after every solver has stopped, and throws what a solver
+                   threw, the same way as SudokuSolver.portfolio().
+    */
+    public static int race(int[][] puzzle, AnnealingSolver[] solvers,
+                           int[][][] solution, long maxMillis) {
+        // a bad puzzle is reported once, before any thread starts
+        checkGivens(puzzle, solvers[0].boxRows, solvers[0].boxCols);
+        AtomicBoolean stop = new AtomicBoolean(false);
+        AtomicInteger winner = new AtomicInteger(-1);
+        long deadline = System.nanoTime() + maxMillis * 1000000;
+        ExecutorService pool = Executors.newFixedThreadPool(solvers.length);
+        ArrayList<Future<int[][]>> results = new ArrayList<Future<int[][]>>();
+        for (int i = 0; i < solvers.length; i++) {
+            final int which = i;
+            final AnnealingSolver solver = solvers[i];
+            results.add(pool.submit(new Callable<int[][]>() {
+                public int[][] call() {
+                    // every solver checks the same flag and time limit
+                    int[][] result = solver.solve(puzzle, stop, true, deadline);
+                    // only the first solver to finish gets to be the winner
+                    if (result != null && winner.compareAndSet(-1, which)) {
+                        solution[0] = result;
+                        stop.set(true);
+                    }
+                    return result;
+                }
+            }));
+        }
+        pool.shutdown();
+        SudokuSolver.awaitRace(results, stop);
+        return winner.get();
+    }
+
+    // solve every puzzle with several runs at once and print how long it took
+    public static void main(String[] args) {
+        int runs = Runtime.getRuntime().availableProcessors();
+        if (args.length > 1) {
+            runs = Integer.parseInt(args[1]);
+        }
+        long maxMillis = 600000;
+        System.out.println("Runs per puzzle: " + runs);
+        if (args[0].matches("[0-9]+")) {
+            int n = Integer.parseInt(args[0]);
+            int[][] puzzle = makePuzzle(n, n, 0.5, new Random(110));
+            solveAndPrint("generated " + n * n + "x" + n * n, puzzle, n, n, runs,
+                          maxMillis);
+            return;
+        }
+        try (PuzzleReader reader = new PuzzleReader(args[0])) {
+            int[][] puzzle = reader.next();
+            while (puzzle != null) {
+                solveAndPrint("line " + reader.getLineNumber(), puzzle,
+                              reader.getBoxRows(), reader.getBoxCols(), runs,
+                              maxMillis);
+                puzzle = reader.next();
+            }
+        }
+    }
+
+    /**
+    * Inputs: name of the puzzle (String), puzzle (int[][]), box size (int),
+              number of runs (int), time limit in milliseconds (long)
+    * Outputs: void
+    * Description: races the runs on the puzzle, checks the answer and prints
+                   the time to converge
+    */
+    private static void solveAndPrint(String name, int[][] puzzle, int boxRows,
+                                      int boxCols, int runs, long maxMillis) {
+        AnnealingSolver[] solvers = new AnnealingSolver[runs];
+        for (int i = 0; i < runs; i++) {
+            solvers[i] = new AnnealingSolver(boxRows, boxCols, 110 + i);
+        }
+        int[][][] solution = new int[1][][];
+        long start = System.nanoTime();
+        int winner = race(puzzle, solvers, solution, maxMillis);
+        double millis = (System.nanoTime() - start) / 1e6;
+        if (winner == -1) {
+            System.out.println(name + ": not solved in " + millis + " ms");
+            return;
+        }
+        AnnealingSolver best = solvers[winner];
+        boolean correct = BoardValidator.isSolved(solution[0], boxRows, boxCols) &&
+                          keepsGivens(puzzle, solution[0]);
+        System.out.println(name + ": run " + winner + " converged in " +
+                           best.getMillis() + " ms (" + millis + " ms total), " +
+                           best.getIterations() + " swaps, " +
+                           best.getRestarts() + " restarts, correct: " + correct);
+    }
+
+    /**
+    * Inputs: box size (int), fraction of squares to empty (double), random
+              numbers (Random)
+    * Outputs: a puzzle with at least one solution (int[][])
+    * Description: shuffles the numbers, the rows inside each band of boxes and
+                   the columns inside each stack of a solved board, then empties
+                   squares at random
+    */
+    public static int[][] makePuzzle(int boxRows, int boxCols, double empty,
+                                     Random random) {
+        int size = boxRows * boxCols;
+        int[][] solved = BoardValidator.solvedBoard(boxRows, boxCols);
+        int[] digits = shuffled(size, random);
+        int[] rows = new int[size];
+        int[] cols = new int[size];
+        for (int band = 0; band < size; band += boxRows) {
+            int[] order = shuffled(boxRows, random);
+            for (int r = 0; r < boxRows; r++) {
+                rows[band + r] = band + order[r] - 1;
+            }
+        }
+        for (int stack = 0; stack < size; stack += boxCols) {
+            int[] order = shuffled(boxCols, random);
+            for (int c = 0; c < boxCols; c++) {
+                cols[stack + c] = stack + order[c] - 1;
+            }
+        }
+        int[][] puzzle = new int[size][size];
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                if (random.nextDouble() >= empty) {
+                    puzzle[r][c] = digits[solved[rows[r]][cols[c]] - 1];
+                }
+            }
+        }
+        return puzzle;
+    }
+
+    // the numbers 1 to n in random order
+    private static int[] shuffled(int n, Random random) {
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i + 1;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int temp = order[i];
+            order[i] = order[j];
+            order[j] = temp;
+        }
+        return order;
+    }
+
+    private static boolean keepsGivens(int[][] puzzle, int[][] solution) {
+        for (int r = 0; r < puzzle.length; r++) {
+            for (int c = 0; c < puzzle.length; c++) {
+                if (puzzle[r][c] != 0 && puzzle[r][c] != solution[r][c]) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+    * Inputs: initial values (int[][]), box size (int)
+    * Outputs: void
+    * Description: throws an exception unless the puzzle has the right size,
+                   holds only numbers from 0 to size, and no row, column or box
+                   repeats a given. Otherwise a box could be given more numbers
+                   than it has squares, and no run could ever reach cost 0.
+    */
+    private static void checkGivens(int[][] puzzle, int boxRows, int boxCols) {
+        int size = boxRows * boxCols;
+        if (puzzle.length != size) {
+            throw new IllegalArgumentException("Puzzle is not " + size + "x" + size);
+        }
+        for (int r = 0; r < size; r++) {
+            if (puzzle[r].length != size) {
+                throw new IllegalArgumentException("Puzzle is not " + size + "x" +
+                                                   size);
+            }
+            for (int c = 0; c < size; c++) {
+                if (puzzle[r][c] < 0 || puzzle[r][c] > size) {
+                    throw new IllegalArgumentException("Not a number between 0 and " +
+                                                       size);
+                }
+            }
+        }
+        boolean[] conflicts = BoardValidator.findConflicts(puzzle, boxRows, boxCols);
+        for (int u = 0; u < conflicts.length; u++) {
+            if (conflicts[u]) {
+                throw new IllegalArgumentException("The givens repeat a number");
+            }
+        }
+    }
+
+    /**
+    * Inputs: initial values (int[][])
+    * Outputs: void
+    * Description: copies the givens and lists the squares of each box that
+                   can be swapped
+    */
+    private void load(int[][] puzzle) {
+        checkGivens(puzzle, this.boxRows, this.boxCols);
+        this.board = new int[this.size * this.size];
+        this.given = new boolean[this.board.length];
+        this.rowCount = new int[this.size * (this.size + 1)];
+        this.colCount = new int[this.size * (this.size + 1)];
+        for (int cell = 0; cell < this.board.length; cell++) {
+            int value = puzzle[cell / this.size][cell % this.size];
+            this.board[cell] = value;
+            this.given[cell] = value != 0;
+        }
+        this.fixSingles();
+        this.boxFree = new int[this.size][];
+        for (int b = 0; b < this.size; b++) {
+            int[] free = new int[this.size];
+            int numFree = 0;
+            for (int k = 0; k < this.size; k++) {
+                int cell = this.boxCell(b, k);
+                if (this.given[cell] == false) {
+                    free[numFree] = cell;
+                    numFree++;
+                }
+            }
+            this.boxFree[b] = new int[numFree];
+            System.arraycopy(free, 0, this.boxFree[b], 0, numFree);
+        }
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: void
+    * Description: an empty square where only one number is not already in its
+                   row, column or box must have that number, so it is treated
+                   like a given. Repeats until there are no more such squares.
+                   This leaves fewer squares to swap, which on big boards makes
+                   annealing much faster. Throws an exception if a square has
+                   no number left, since then there is no solution.
+    */
+    private void fixSingles() {
+        int stride = this.size + 1;
+        boolean[] rowHas = new boolean[this.size * stride];
+        boolean[] colHas = new boolean[this.size * stride];
+        boolean[] boxHas = new boolean[this.size * stride];
+        for (int cell = 0; cell < this.board.length; cell++) {
+            if (this.given[cell]) {
+                this.mark(rowHas, colHas, boxHas, cell);
+            }
+        }
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int cell = 0; cell < this.board.length; cell++) {
+                if (this.given[cell]) {
+                    continue;
+                }
+                int row = (cell / this.size) * stride;
+                int col = (cell % this.size) * stride;
+                int box = this.boxOf(cell) * stride;
+                int only = 0;
+                int choices = 0;
+                for (int d = 1; d <= this.size && choices < 2; d++) {
+                    if (rowHas[row + d] == false && colHas[col + d] == false &&
+                        boxHas[box + d] == false) {
+                        only = d;
+                        choices++;
+                    }
+                }
+                if (choices == 0) {
+                    throw new IllegalArgumentException("No number fits row " +
+                                                       (cell / this.size + 1) +
+                                                       ", column " +
+                                                       (cell % this.size + 1));
+                }
+                if (choices == 1) {
+                    this.board[cell] = only;
+                    this.given[cell] = true;
+                    this.mark(rowHas, colHas, boxHas, cell);
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private void mark(boolean[] rowHas, boolean[] colHas, boolean[] boxHas,
+                      int cell) {
+        int stride = this.size + 1;
+        rowHas[(cell / this.size) * stride + this.board[cell]] = true;
+        colHas[(cell % this.size) * stride + this.board[cell]] = true;
+        boxHas[this.boxOf(cell) * stride + this.board[cell]] = true;
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: void
+    * Description: fills the free squares of each box with the numbers the box
+                   is missing, in random order, and counts the cost
+    */
+    private void fillBoxes() {
+        for (int b = 0; b < this.size; b++) {
+            boolean[] present = new boolean[this.size + 1];
+            for (int k = 0; k < this.size; k++) {
+                int cell = this.boxCell(b, k);
+                if (this.given[cell]) {
+                    present[this.board[cell]] = true;
+                }
+            }
+            int[] free = this.boxFree[b];
+            int[] missing = new int[free.length];
+            int n = 0;
+            for (int d = 1; d <= this.size; d++) {
+                if (present[d] == false) {
+                    missing[n] = d;
+                    n++;
+                }
+            }
+            for (int i = n - 1; i > 0; i--) {
+                int j = this.random.nextInt(i + 1);
+                int temp = missing[i];
+                missing[i] = missing[j];
+                missing[j] = temp;
+            }
+            for (int i = 0; i < free.length; i++) {
+                this.board[free[i]] = missing[i];
+            }
+        }
+        Arrays.fill(this.rowCount, 0);
+        Arrays.fill(this.colCount, 0);
+        this.cost = 0;
+        for (int cell = 0; cell < this.board.length; cell++) {
+            int row = this.rowIndex(cell);
+            int col = this.colIndex(cell);
+            if (this.rowCount[row] > 0) {
+                this.cost++;
+            }
+            if (this.colCount[col] > 0) {
+                this.cost++;
+            }
+            this.rowCount[row]++;
+            this.colCount[col]++;
+        }
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: true if the cost got to 0, false if the run got stuck or was
+               stopped (boolean)
+    * Description: one annealing run from the current fill. A round of swaps
+                   is the sum over the boxes of (free squares in the box)^2,
+                   about one try of every pair; the temperature goes down after
+                   every round.
+    */
+    private boolean anneal() {
+        int chain = 0;
+        int[] swappable = new int[this.size];
+        for (int b = 0; b < this.size; b++) {
+            if (this.boxFree[b].length >= 2) {
+                swappable[chain] = b;
+                chain++;
+            }
+        }
+        if (chain == 0) {
+            return this.cost == 0;
+        }
+        int numBoxes = chain;
+        chain = 0;
+        for (int i = 0; i < numBoxes; i++) {
+            int free = this.boxFree[swappable[i]].length;
+            chain += free * free;
+        }
+        double temperature = this.startTemperature(swappable, numBoxes);
+        int best = this.cost;
+        int stuck = 0;
+        while (this.cost > 0 && stuck < STUCK_CHAINS) {
+            for (int i = 0; i < chain && this.cost > 0; i++) {
+                this.iterations++;
+                if ((this.iterations & (CHECK_EVERY - 1)) == 0 && this.isStopped()) {
+                    return false;
+                }
+                int[] free = this.boxFree[swappable[this.random.nextInt(numBoxes)]];
+                int a = free[this.random.nextInt(free.length)];
+                int b = free[this.random.nextInt(free.length - 1)];
+                if (b == a) {
+                    b = free[free.length - 1];
+                }
+                int delta = this.swapDelta(a, b);
+                if (delta <= 0 ||
+                    this.random.nextDouble() < Math.exp(-delta / temperature)) {
+                    this.swap(a, b);
+                    this.cost += delta;
+                }
+            }
+            if (this.cost < best) {
+                best = this.cost;
+                stuck = 0;
+            }
+            else {
+                stuck++;
+            }
+            temperature *= COOLING;
+        }
+        return this.cost == 0;
+    }
+
+    /**
+    * Inputs: boxes with at least two free squares and how many (int[], int)
+    * Outputs: starting temperature (double)
+    * Description: the standard deviation of the cost change of random swaps,
+                   so about two thirds of bad swaps are accepted at first
+    */
+    private double startTemperature(int[] swappable, int numBoxes) {
+        int samples = 200;
+        double sum = 0;
+        double sumSquares = 0;
+        for (int s = 0; s < samples; s++) {
+            int[] free = this.boxFree[swappable[this.random.nextInt(numBoxes)]];
+            int a = free[this.random.nextInt(free.length)];
+            int b = free[this.random.nextInt(free.length - 1)];
+            if (b == a) {
+                b = free[free.length - 1];
+            }
+            int delta = this.swapDelta(a, b);
+            sum += delta;
+            sumSquares += delta * delta;
+        }
+        double mean = sum / samples;
+        return Math.max(0.1, Math.sqrt(sumSquares / samples - mean * mean));
+    }
+
+    /**
+    * Inputs: two squares of the same box (int)
+    * Outputs: change in cost if their numbers were swapped (int)
+    * Description: looks only at the counts of the two numbers in the rows and
+                   columns of the squares, so it takes the same time on any
+                   board size
+    */
+    private int swapDelta(int a, int b) {
+        int va = this.board[a];
+        int vb = this.board[b];
+        int delta = 0;
+        int rowA = (a / this.size) * (this.size + 1);
+        int rowB = (b / this.size) * (this.size + 1);
+        if (rowA != rowB) {
+            delta += leave(this.rowCount[rowA + va]) + join(this.rowCount[rowA + vb]) +
+                     leave(this.rowCount[rowB + vb]) + join(this.rowCount[rowB + va]);
+        }
+        int colA = (a % this.size) * (this.size + 1);
+        int colB = (b % this.size) * (this.size + 1);
+        if (colA != colB) {
+            delta += leave(this.colCount[colA + va]) + join(this.colCount[colA + vb]) +
+                     leave(this.colCount[colB + vb]) + join(this.colCount[colB + va]);
+        }
+        return delta;
+    }
+
+    // change in cost when a number leaves or joins a unit that has it count times
+    private static int leave(int count) {
+        if (count > 1) {
+            return -1;
+        }
+        return 0;
+    }
+
+    private static int join(int count) {
+        if (count > 0) {
+            return 1;
+        }
+        return 0;
+    }
+
+    private void swap(int a, int b) {
+        this.rowCount[this.rowIndex(a)]--;
+        this.colCount[this.colIndex(a)]--;
+        this.rowCount[this.rowIndex(b)]--;
+        this.colCount[this.colIndex(b)]--;
+        int temp = this.board[a];
+        this.board[a] = this.board[b];
+        this.board[b] = temp;
+        this.rowCount[this.rowIndex(a)]++;
+        this.colCount[this.colIndex(a)]++;
+        this.rowCount[this.rowIndex(b)]++;
+        this.colCount[this.colIndex(b)]++;
+    }
+
+    // index of the count of the number in the square's row (or column)
+    private int rowIndex(int cell) {
+        return (cell / this.size) * (this.size + 1) + this.board[cell];
+    }
+
+    private int colIndex(int cell) {
+        return (cell % this.size) * (this.size + 1) + this.board[cell];
+    }
+
+    /**
+    * Inputs: box 0 to size - 1 (left to right, top to bottom), square of the
+              box 0 to size - 1 (int)
+    * Outputs: the square's number on the board (int)
+    */
+    private int boxCell(int box, int k) {
+        int top = (box / this.boxRows) * this.boxRows;
+        int left = (box % this.boxRows) * this.boxCols;
+        return (top + k / this.boxCols) * this.size + left + k % this.boxCols;
+    }
+
+    // box of a square, numbered like boxCell()
+    private int boxOf(int cell) {
+        int row = cell / this.size;
+        int col = cell % this.size;
+        return (row / this.boxRows) * this.boxRows + col / this.boxCols;
+    }
+
+    // compared as a difference, so the check still works if nanoTime() wraps
+    private boolean isStopped() {
+        return this.stop.get() ||
+               (this.timed && System.nanoTime() - this.deadline > 0);
+    }
+}
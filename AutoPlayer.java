@@ -0,0 +1,332 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Execution: java AutoPlayer [input sudoku table] [number of games] [script]
+ * Plays the puzzle the given number of times (default 1000) without anyone at
+ * the keyboard. If a script file is given, every game replays it; otherwise the
+ * key presses and mouse positions are random. Adding -Dsudoku.render=true after
+ * java also draws every frame.
+ *
+ * Each line of a script is one frame, either "key [character] [x] [y]" (a key
+ * typed with the mouse at x, y) or "click [x] [y]" (the mouse pressed at x, y).
+ *
+ * Description: a class that stress tests the game loop. Events go through the
+ * same SudokuGrid methods drawGrid() uses (typeKey(), clickMouse() and, when
+ * rendering, drawFrame()). After every frame the board is checked against an
+ * independent check that reads the squares straight from the Box objects:
+ * isSolved() must agree with it, the row-order values must match the boxes, and
+ * the number of broken rules must match the number of rows, columns and boxes
+ * with a repeat number, counted from scratch. It prints games
+ * and frames per second, frame times and the number of inconsistencies found.
+ *
+ * Random games type the right digit most of the time so that they finish; they
+ * also type wrong digits, other keys (including the 'g' and 'u' guess keys),
+ * move the mouse off the board and sometimes press RESET. A game that is not
+ * solved after MAX_FRAMES frames is stopped.
+ *
+ */
+
+import java.util.Random;
+
+public class AutoPlayer {
+
+    private static final int MAX_FRAMES = 5000;
+    // frame times are counted in 1 microsecond buckets up to 10 ms
+    private static final int BUCKETS = 10000;
+
+    // fields
+    private int[][] initial;
+    private int[][] solution;
+    private boolean render;
+    private Random random;
+    private int[] values;
+    private int[] wrongCells;
+    private long frames;
+    private long solvedGames;
+    private long inconsistencies;
+    private long totalNanos;
+    private long maxNanos;
+    private long[] frameHistogram;
+
+    // constructor
+    public AutoPlayer(int[][] initial, boolean render, long seed) {
+        this.initial = initial;
+        this.solution = new SudokuSolver().solve(initial);
+        this.render = render;
+        this.random = new Random(seed);
+        this.values = new int[36];
+        this.wrongCells = new int[36];
+        this.frameHistogram = new long[BUCKETS + 1];
+    }
+
+    // play the games and print the results
+    public static void main(String[] args) {
+        int[][] initial = SudokuGrid.readInFile(args[0]);
+        int games = 1000;
+        if (args.length > 1) {
+            games = Integer.parseInt(args[1]);
+        }
+        String[] script = null;
+        if (args.length > 2) {
+            script = new In(args[2]).readAll().split("\n");
+        }
+        boolean render = Boolean.getBoolean("sudoku.render");
+        if (render) {
+            PennDraw.setCanvasSize(SudokuGrid.CANVAS_WIDTH, SudokuGrid.CANVAS_HEIGHT);
+            PennDraw.setXscale(-.5, 6.5);
+            PennDraw.setYscale(6.5, -.5);
+            PennDraw.enableAnimation(1000);
+        }
+
+        AutoPlayer player = new AutoPlayer(initial, render, 110);
+        long start = System.nanoTime();
+        for (int g = 0; g < games; g++) {
+            if (script != null) {
+                player.playScript(script);
+            }
+            else {
+                player.playRandom();
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        player.printResults(games, seconds);
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: void
+    * Description: plays one game with random events until it is solved
+    */
+    public void playRandom() {
+        SudokuGrid board = new SudokuGrid(this.initial);
+        for (int f = 0; f < MAX_FRAMES && board.isSolved() == false; f++) {
+            double choice = this.random.nextDouble();
+            if (choice < 0.01) {
+                this.frame(board, false, ' ', 6, 6.3);
+            }
+            else if (choice < 0.05) {
+                // a key that is not a number 1-6, including the guess keys
+                this.frame(board, true, "a0789 gu".charAt(this.random.nextInt(8)),
+                           this.randomPosition(), this.randomPosition());
+            }
+            else if (choice < 0.25 || this.solution == null) {
+                // a number anywhere, possibly off the board
+                this.frame(board, true, (char) ('1' + this.random.nextInt(6)),
+                           this.randomPosition(), this.randomPosition());
+            }
+            else {
+                // the right number in a square that does not have it yet
+                int cell = this.wrongCell(board);
+                int row = cell / 6;
+                int col = cell % 6;
+                char c = (char) ('0' + this.solution[row][col]);
+                this.frame(board, true, c, col + this.random.nextDouble(),
+                           row + this.random.nextDouble());
+            }
+        }
+        if (board.isSolved()) {
+            this.solvedGames++;
+        }
+    }
+
+    /**
+    * Inputs: lines of a script (String[])
+    * Outputs: void
+    * Description: plays one game, one line of the script per frame
+    */
+    public void playScript(String[] script) {
+        SudokuGrid board = new SudokuGrid(this.initial);
+        for (int i = 0; i < script.length && board.isSolved() == false; i++) {
+            String[] parts = script[i].trim().split(" +");
+            if (parts[0].equals("key") && parts.length == 4) {
+                this.frame(board, true, parts[1].charAt(0),
+                           Double.parseDouble(parts[2]), Double.parseDouble(parts[3]));
+            }
+            else if (parts[0].equals("click") && parts.length == 3) {
+                this.frame(board, false, ' ', Double.parseDouble(parts[1]),
+                           Double.parseDouble(parts[2]));
+            }
+        }
+        if (board.isSolved()) {
+            this.solvedGames++;
+        }
+    }
+
+    /**
+    * Inputs: board (SudokuGrid), whether a key was typed or the mouse pressed
+              (boolean), key (char), mouse position (double)
+    * Outputs: void
+    * Description: runs one frame of the game loop, times it, and checks the
+                   board afterwards
+    */
+    private void frame(SudokuGrid board, boolean keyTyped, char c,
+                       double mouseX, double mouseY) {
+        long start = System.nanoTime();
+        if (this.render) {
+            board.drawFrame();
+        }
+        if (keyTyped) {
+            board.typeKey(c, mouseX, mouseY);
+        }
+        else {
+            board.clickMouse(mouseX, mouseY);
+        }
+        board.isSolved();
+        if (this.render) {
+            PennDraw.advance();
+        }
+        long nanos = System.nanoTime() - start;
+
+        this.frames++;
+        this.totalNanos += nanos;
+        this.maxNanos = Math.max(this.maxNanos, nanos);
+        this.frameHistogram[(int) Math.min(BUCKETS, nanos / 1000)]++;
+        if (this.isConsistent(board) == false) {
+            this.inconsistencies++;
+        }
+    }
+
+    /**
+    * Inputs: board (SudokuGrid)
+    * Outputs: true/false (boolean)
+    * Description: returns false if the board's own bookkeeping disagrees with
+                   the squares in its Box objects
+    */
+    private boolean isConsistent(SudokuGrid board) {
+        int[] values = this.values;
+        Box[][] grid = board.getGrid();
+        for (int row = 0; row < 6; row++) {
+            for (int col = 0; col < 6; col++) {
+                values[row * 6 + col] = board.getValue(row, col);
+                BoxValue square = grid[row / 2][col / 3].getBox()[row % 2][col % 3];
+                if (square.getValue() != values[row * 6 + col]) {
+                    return false;
+                }
+            }
+        }
+        if (countRepeats(values) != board.getConstraints().getNumViolated()) {
+            return false;
+        }
+        return board.isSolved() == isSolved(values);
+    }
+
+    /**
+    * Inputs: values in row order (int[])
+    * Outputs: number of rows, columns and 2x3 boxes with a repeat number (int)
+    */
+    private static int countRepeats(int[] values) {
+        int repeats = 0;
+        for (int unit = 0; unit < 6; unit++) {
+            int row = 0;
+            int col = 0;
+            int box = 0;
+            boolean rowRepeat = false;
+            boolean colRepeat = false;
+            boolean boxRepeat = false;
+            for (int k = 0; k < 6; k++) {
+                int boxRow = (unit / 2) * 2 + k / 3;
+                int boxCol = (unit % 2) * 3 + k % 3;
+                // bit 0 is an empty square, which can repeat
+                int rowBit = (1 << values[unit * 6 + k]) & ~1;
+                int colBit = (1 << values[k * 6 + unit]) & ~1;
+                int boxBit = (1 << values[boxRow * 6 + boxCol]) & ~1;
+                rowRepeat |= (row & rowBit) != 0;
+                colRepeat |= (col & colBit) != 0;
+                boxRepeat |= (box & boxBit) != 0;
+                row |= rowBit;
+                col |= colBit;
+                box |= boxBit;
+            }
+            if (rowRepeat) {
+                repeats++;
+            }
+            if (colRepeat) {
+                repeats++;
+            }
+            if (boxRepeat) {
+                repeats++;
+            }
+        }
+        return repeats;
+    }
+
+    /**
+    * Inputs: values in row order (int[])
+    * Outputs: true/false (boolean)
+    * Description: returns true if every row, column and 2x3 box holds 1-6
+    */
+    private static boolean isSolved(int[] values) {
+        for (int unit = 0; unit < 6; unit++) {
+            int row = 0;
+            int col = 0;
+            int box = 0;
+            for (int k = 0; k < 6; k++) {
+                row |= 1 << values[unit * 6 + k];
+                col |= 1 << values[k * 6 + unit];
+                int boxRow = (unit / 2) * 2 + k / 3;
+                int boxCol = (unit % 2) * 3 + k % 3;
+                box |= 1 << values[boxRow * 6 + boxCol];
+            }
+            if (row != 0x7e || col != 0x7e || box != 0x7e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+    * Inputs: board (SudokuGrid)
+    * Outputs: a random square whose value is not the solution's (int)
+    */
+    private int wrongCell(SudokuGrid board) {
+        int numWrong = 0;
+        for (int k = 0; k < 36; k++) {
+            if (board.getValue(k / 6, k % 6) != this.solution[k / 6][k % 6]) {
+                this.wrongCells[numWrong] = k;
+                numWrong++;
+            }
+        }
+        if (numWrong == 0) {
+            return this.random.nextInt(36);
+        }
+        return this.wrongCells[this.random.nextInt(numWrong)];
+    }
+
+    private double randomPosition() {
+        return this.random.nextDouble() * 7 - 0.5;
+    }
+
+    /**
+    * Inputs: fraction of frames, for example 0.99 (double)
+    * Outputs: frame time in microseconds that fraction of frames took at most
+               (int)
+    */
+    private int framePercentile(double fraction) {
+        long target = (long) Math.ceil(fraction * this.frames);
+        long seen = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            seen += this.frameHistogram[i];
+            if (seen >= target && seen > 0) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private void printResults(int games, double seconds) {
+        System.out.println("Games: " + games + " (" + this.solvedGames + " solved) in " +
+                           seconds + " s");
+        System.out.println("Games per second: " + games / seconds);
+        System.out.println("Frames: " + this.frames + ", per second: " +
+                           this.frames / seconds);
+        if (this.frames > 0) {
+            System.out.println("Frame time (us): average " +
+                               this.totalNanos / this.frames / 1000.0 +
+                               ", 99% under " + this.framePercentile(0.99) +
+                               ", max " + this.maxNanos / 1000.0);
+        }
+        System.out.println("Inconsistencies: " + this.inconsistencies);
+    }
+}
@@ -0,0 +1,75 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Description: a saved copy of a SudokuGrid board (its boxes, values and which
+ * rules are broken) made by SudokuGrid.snapshot(). A snapshot shares its Box
+ * objects and arrays with the board instead of copying them, so making one or
+ * going back to one takes the same short time on any size of board. The board
+ * copies a box only the first time it changes a square in it afterwards
+ * (copy-on-write), so the snapshot itself never changes. The one exception is
+ * the guess snapshot the board keeps to itself: it is saved over for the next
+ * guess instead of making a new one. A snapshot remembers the board that made
+ * it, and only that board's restore() accepts it. Its constructor and the
+ * getters of the shared boxes and arrays are left out of the public methods
+ * because only SudokuGrid should use them; every class of the game is in the
+ * same (default) package, so this does not stop the others.
+ *
+ */
+
+public class BoardSnapshot {
+    
+    // fields
+    private SudokuGrid board;
+    private Box[][] grid;
+    private int[] values;
+    private boolean[] violated;
+    private int numViolated;
+    
+    // constructor
+    BoardSnapshot(SudokuGrid board, Box[][] grid, int[] values, 
+                  boolean[] violated, int numViolated) {
+        this.board = board;
+        this.grid = grid;
+        this.values = values;
+        this.violated = violated;
+        this.numViolated = numViolated;
+    }
+    
+    // getters
+    public SudokuGrid getBoard() {
+        return this.board;
+    }
+    
+    Box[][] getGrid() {
+        return this.grid;
+    }
+    
+    int[] getValues() {
+        return this.values;
+    }
+    
+    boolean[] getViolated() {
+        return this.violated;
+    }
+    
+    public int getNumViolated() {
+        return this.numViolated;
+    }
+    
+    /**
+    * Inputs: boxes, values, which rules are broken and how many (Box[][], 
+              int[], boolean[], int)
+    * Outputs: void
+    * Description: saves a new state into this snapshot. Only for snapshots the
+                   board keeps itself (its guess), once it no longer needs the
+                   state saved before, so no snapshot anyone holds changes.
+    */
+    void save(Box[][] grid, int[] values, boolean[] violated, int numViolated) {
+        this.grid = grid;
+        this.values = values;
+        this.violated = violated;
+        this.numViolated = numViolated;
+    }
+}
@@ -0,0 +1,265 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Execution: java BoardValidator
+ * Times the serial and parallel checks on solved boards of several sizes (each
+ * with one repeat number added) and prints the speedup, and the smallest size
+ * where the parallel check was faster.
+ *
+ * Description: a class that checks every row, column and box of a board of any
+ * size (boxes of boxRows x boxCols squares, so the board is boxRows * boxCols
+ * squares on a side) and returns every unit that has two of the same number,
+ * like the rows/columns/boxes drawGrid() highlights. A number outside 1 to size
+ * also marks its units, so a bad board is reported instead of crashing the check.
+ *
+ * Big boards are split into groups of units that are checked at the same time on
+ * all cores with fork/join; each group has about SQUARES_PER_TASK squares, so
+ * every task has enough work to pay for starting it. Boards smaller than
+ * PARALLEL_MIN_SQUARES (and every board when there is only one core) are checked
+ * one unit after another. PARALLEL_MIN_SQUARES is an estimate, not a
+ * measurement: it was only timed on one thread, where main() measures the
+ * parallel check at about 2 us slower than the serial one for any size, and a
+ * 25x25 board takes about 5 us to check, so from 25x25 up two cores should
+ * finish first. Running main() on a machine with several cores prints the
+ * size to set it from.
+ *
+ * The board must be square with boxRows * boxCols squares on a side, or the
+ * check throws an IllegalArgumentException.
+ *
+ * Units are numbered 0 to 3 * size - 1: rows first, then columns, then boxes
+ * (left to right, top to bottom).
+ *
+ */
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+public class BoardValidator extends RecursiveAction {
+
+    private static final long serialVersionUID = 1L;
+
+    // boards with fewer squares than this are checked serially (25x25, an
+    // estimate; see above)
+    public static final int PARALLEL_MIN_SQUARES = 625;
+    // squares one task checks without splitting further (at least one unit)
+    private static final int SQUARES_PER_TASK = 1024;
+
+    // fields
+    private int[][] board;
+    private int boxRows;
+    private int boxCols;
+    private boolean[] conflicts;
+    private int first;
+    private int last;
+
+    // constructor, a task that checks units first to last - 1
+    public BoardValidator(int[][] board, int boxRows, int boxCols,
+                          boolean[] conflicts, int first, int last) {
+        this.board = board;
+        this.boxRows = boxRows;
+        this.boxCols = boxCols;
+        this.conflicts = conflicts;
+        this.first = first;
+        this.last = last;
+    }
+
+    /**
+    * Inputs: board with 0 for empty squares (int[][]), box size (int)
+    * Outputs: true for each unit with a repeat number (boolean[])
+    * Description: checks serially or in parallel depending on the board size
+                   and the number of cores
+    */
+    public static boolean[] findConflicts(int[][] board, int boxRows, int boxCols) {
+        int size = board.length;
+        if (size * size < PARALLEL_MIN_SQUARES || 
+            ForkJoinPool.commonPool().getParallelism() < 2) {
+            return findConflictsSerial(board, boxRows, boxCols);
+        }
+        return findConflictsParallel(board, boxRows, boxCols);
+    }
+
+    public static boolean[] findConflictsSerial(int[][] board, int boxRows,
+                                                int boxCols) {
+        checkShape(board, boxRows, boxCols);
+        boolean[] conflicts = new boolean[3 * board.length];
+        new BoardValidator(board, boxRows, boxCols, conflicts, 0,
+                           conflicts.length).checkUnits();
+        return conflicts;
+    }
+
+    public static boolean[] findConflictsParallel(int[][] board, int boxRows,
+                                                  int boxCols) {
+        checkShape(board, boxRows, boxCols);
+        boolean[] conflicts = new boolean[3 * board.length];
+        ForkJoinPool.commonPool().invoke(new BoardValidator(board, boxRows,
+            boxCols, conflicts, 0, conflicts.length));
+        return conflicts;
+    }
+
+    /**
+    * Inputs: board (int[][]), box size (int)
+    * Outputs: true/false (boolean)
+    * Description: returns true if every square is filled in and no row,
+                   column or box has a repeat number
+    */
+    public static boolean isSolved(int[][] board, int boxRows, int boxCols) {
+        checkShape(board, boxRows, boxCols);
+        for (int i = 0; i < board.length; i++) {
+            for (int j = 0; j < board.length; j++) {
+                if (board[i][j] == 0) {
+                    return false;
+                }
+            }
+        }
+        boolean[] conflicts = findConflicts(board, boxRows, boxCols);
+        for (int u = 0; u < conflicts.length; u++) {
+            if (conflicts[u]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+    * Inputs: board (int[][]), box size (int)
+    * Outputs: void
+    * Description: throws an exception unless the board is square and its side
+                   is boxRows * boxCols, so every unit can be read
+    */
+    private static void checkShape(int[][] board, int boxRows, int boxCols) {
+        if (boxRows < 1 || boxCols < 1 || boxRows * boxCols != board.length) {
+            throw new IllegalArgumentException("Board side is not " + boxRows +
+                                               " x " + boxCols);
+        }
+        for (int i = 0; i < board.length; i++) {
+            if (board[i].length != board.length) {
+                throw new IllegalArgumentException("Board is not square");
+            }
+        }
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: void
+    * Description: checks the units directly if they hold few enough squares,
+                   otherwise splits them in half and checks both halves in
+                   parallel
+    */
+    protected void compute() {
+        int units = this.last - this.first;
+        if (units == 1 || units * this.board.length <= SQUARES_PER_TASK) {
+            this.checkUnits();
+            return;
+        }
+        int middle = (this.first + this.last) / 2;
+        invokeAll(new BoardValidator(this.board, this.boxRows, this.boxCols,
+                                     this.conflicts, this.first, middle),
+                  new BoardValidator(this.board, this.boxRows, this.boxCols,
+                                     this.conflicts, middle, this.last));
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: void
+    * Description: checks units first to last - 1. seen[d] holds the number of
+                   the last unit digit d was found in, so it never needs to be
+                   cleared between units.
+    */
+    private void checkUnits() {
+        int size = this.board.length;
+        int[] seen = new int[size + 1];
+        for (int u = this.first; u < this.last; u++) {
+            int stamp = u + 1;
+            int kind = u / size;
+            int index = u % size;
+            int top = (index / this.boxRows) * this.boxRows;
+            int left = (index % this.boxRows) * this.boxCols;
+            for (int k = 0; k < size; k++) {
+                int digit;
+                if (kind == AllDifferent.ROW) {
+                    digit = this.board[index][k];
+                }
+                else if (kind == AllDifferent.COLUMN) {
+                    digit = this.board[k][index];
+                }
+                else {
+                    digit = this.board[top + k / this.boxCols][left + k % this.boxCols];
+                }
+                if (digit == 0) {
+                    continue;
+                }
+                // not a number this board can hold
+                if (digit < 0 || digit > size) {
+                    this.conflicts[u] = true;
+                    break;
+                }
+                if (seen[digit] == stamp) {
+                    this.conflicts[u] = true;
+                    break;
+                }
+                seen[digit] = stamp;
+            }
+        }
+    }
+
+    /**
+    * Inputs: box size (int)
+    * Outputs: a solved board (int[][])
+    * Description: fills the board with the usual shifted pattern
+    */
+    public static int[][] solvedBoard(int boxRows, int boxCols) {
+        int size = boxRows * boxCols;
+        int[][] board = new int[size][size];
+        for (int r = 0; r < size; r++) {
+            for (int c = 0; c < size; c++) {
+                board[r][c] = (boxCols * (r % boxRows) + r / boxRows + c) % size + 1;
+            }
+        }
+        return board;
+    }
+
+    // time the serial and parallel checks on several board sizes
+    public static void main(String[] args) {
+        int[] boxSizes = {2, 3, 4, 5, 8, 10, 15, 20, 30};
+        System.out.println("Threads: " + ForkJoinPool.commonPool().getParallelism());
+        System.out.println("size   serial (us)  parallel (us)  speedup  same result");
+        String firstFaster = "none";
+        for (int s = 0; s < boxSizes.length; s++) {
+            int n = boxSizes[s];
+            int[][] board = solvedBoard(n, n);
+            // add one repeat number: row 0, column 1 and the first box
+            board[0][1] = board[0][0];
+            int repeats = Math.max(20, 2000000 / (n * n * n * n));
+            long serial = Long.MAX_VALUE;
+            long parallel = Long.MAX_VALUE;
+            boolean same = true;
+            // best of several rounds, after the first round warms up the JIT
+            for (int round = 0; round < 5; round++) {
+                long start = System.nanoTime();
+                boolean[] a = null;
+                for (int i = 0; i < repeats; i++) {
+                    a = findConflictsSerial(board, n, n);
+                }
+                serial = Math.min(serial, (System.nanoTime() - start) / repeats);
+                start = System.nanoTime();
+                boolean[] b = null;
+                for (int i = 0; i < repeats; i++) {
+                    b = findConflictsParallel(board, n, n);
+                }
+                parallel = Math.min(parallel, (System.nanoTime() - start) / repeats);
+                same = same && Arrays.equals(a, b);
+            }
+            System.out.println(n * n + "x" + n * n + "   " + serial / 1000.0 +
+                               "   " + parallel / 1000.0 + "   " +
+                               (double) serial / parallel + "   " + same);
+            if (parallel < serial && firstFaster.equals("none")) {
+                firstFaster = n * n + "x" + n * n;
+            }
+        }
+        System.out.println("Parallel check first faster at: " + firstFaster +
+                           " (PARALLEL_MIN_SQUARES is " + PARALLEL_MIN_SQUARES + ")");
+    }
+}
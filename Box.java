@@ -11,8 +11,10 @@
 
 public class Box {
     
-    // field
+    // fields
     private BoxValue[][] box;
+    // version of the SudokuGrid board that may change this box (see snapshot())
+    private long owner;
     
     // constructor
     public Box(int[][] intArray, int row, int column) {
@@ -36,21 +38,59 @@ public class Box {
     public Box() {
         this.box = null;
     }
+    // method overloading, copy of another box that belongs to board version owner
+    public Box(Box other, long owner) {
+        BoxValue[][] boxValueArray = new BoxValue[2][3];
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 3; j++) {
+                BoxValue oneBoxValue = new BoxValue(other.getBox()[i][j].getValue());
+                if (other.getBox()[i][j].getIsMutable() == false) {
+                    oneBoxValue.setToImmutable();
+                }
+                boxValueArray[i][j] = oneBoxValue;
+            }
+        }
+        this.box = boxValueArray;
+        this.owner = owner;
+    }
+    
+    /**
+    * Inputs: box in the same place on the board (Box), board version (long)
+    * Outputs: void
+    * Description: copies the other box's numbers into this one, so a box that
+                   is no longer used can stand in for a new copy. Initial values
+                   are the same in both boxes and are not changed. Only meant
+                   for SudokuGrid (not public, as a reminder; every class of
+                   the game is in the same default package).
+    */
+    void copyFrom(Box other, long owner) {
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 3; j++) {
+                this.box[i][j].setValue(other.getBox()[i][j].getValue());
+            }
+        }
+        this.owner = owner;
+    }
     
     // getters
     public BoxValue[][] getBox() {
         return this.box;
     }
     
+    public long getOwner() {
+        return this.owner;
+    }
+    
     /**
-    * Inputs: horizontal offset x, vertical offset y (double)
+    * Inputs: where to draw (Canvas), horizontal offset x, vertical offset y 
+              (double)
     * Outputs: void
     * Description: draws the numbers of the BoxValue elements of the Box object
     */
-    public void drawArray(double x, double y) {
+    public void drawArray(Canvas canvas, double x, double y) {
         for (int i = 0; i < 2; i++) {
             for (int j = 0; j < 3; j++) {
-               this.getBox()[i][j].drawDigit(j + x, i + y);
+               this.getBox()[i][j].drawDigit(canvas, j + x, i + y);
             }
             
         }
@@ -92,7 +132,7 @@ public class Box {
     * Description: highlights the problem box green             
     */
     public void colorBox(int x, int y) {
-        PennDraw.setPenColor(87, 255, 138, 100);
+        PennDraw.setPenColor(AllDifferent.BOX_COLOR);
         PennDraw.filledRectangle(x + 1.5, y + 1, 1.5, 1);
     }
     
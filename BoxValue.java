@@ -8,8 +8,29 @@
  *
  */
 
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+
 public class BoxValue {
     
+    // text of each digit, indexed by digit (empty for 0), so no String is
+    // built when a digit is drawn
+    public static final String[] DIGIT_LABELS = {"", "1", "2", "3", "4", "5", "6"};
+    
+    // color of the initial values
+    private static final Color GIVEN_COLOR = new Color(100, 100, 100);
+    
+    // cached images of each digit, indexed by digit (index 0 is unused), and
+    // the window size they were drawn for
+    private static String[] boldDigits = null;
+    private static String[] plainDigits = null;
+    private static int digitsWidth = 0;
+    private static int digitsHeight = 0;
+    
     // fields
     private int value;
     private boolean isMutable;
@@ -30,8 +51,11 @@ public class BoxValue {
         return this.isMutable;
     }
     
-    // setters
-    public void setValue(int digit) {
+    // setters, only meant for Box and SudokuGrid: a square may be shared by
+    // several versions of the board, so the game changes it only through
+    // SudokuGrid.setValue(). They are not public as a reminder; every class of
+    // the game is in the same default package, so this does not hide them.
+    void setValue(int digit) {
         if (digit < 0 || digit > 6) {
             throw new IllegalArgumentException("Not a number between 1 and 6");
         }
@@ -48,45 +72,92 @@ public class BoxValue {
     * Outputs: void
     * Description: changes BoxValue's mutability property             
     */
-    public void setToImmutable() {
+    void setToImmutable() {
         this.isMutable = false;
     }
     
     /**
-    * Inputs: xPosition, yPosition (double)
+    * Inputs: where to draw (Canvas), xPosition, yPosition (double)
     * Outputs: void
     * Description: gets value of BoxValue and draws it at the indicated position
+                   by copying the cached image of that digit onto the canvas
     */
-    public void drawDigit(double row, double col) {
-        PennDraw.setFontSize(20);
+    public void drawDigit(Canvas canvas, double row, double col) {
+        if (boldDigits == null) {
+            prepareDigits(SudokuGrid.CANVAS_WIDTH, SudokuGrid.CANVAS_HEIGHT);
+        }
         // if the value is not mutable, draw the inital value from input table
         if (this.getIsMutable() == false) {
-            PennDraw.setPenColor(100, 100, 100);
-            PennDraw.setFontBold();
-            PennDraw.text(row, col, "" + this.getValue());
+            canvas.picture(row, col, boldDigits[this.getValue()]);
             return;
         }
-        PennDraw.setPenColor(PennDraw.WHITE);
-        PennDraw.setFontPlain();
-        String stringDigit = integerToString(this.getValue());
         // draw nothing if the value is 0
-        if (stringDigit.equals("0")) {
-           PennDraw.text(row, col, " ");
+        if (this.getValue() != 0) {
+            canvas.picture(row, col, plainDigits[this.getValue()]);
         }
-        // draw value (int) of the BoxValue object
-        else {
-           PennDraw.text(row, col, stringDigit);
+    }
+    
+    /**
+    * Inputs: width and height of the window in pixels (int)
+    * Outputs: void
+    * Description: draws the digits 1-6 once into offscreen images, bold and grey
+                   for initial values and plain and white for user entries, 
+                   so drawDigit() only has to copy an image each frame. Does
+                   nothing if they were already drawn for this window size.
+    */
+    public static void prepareDigits(int width, int height) {
+        if (boldDigits != null && digitsWidth == width && digitsHeight == height) {
+            return;
+        }
+        // one square of the board
+        int squareWidth = width / 7;
+        int squareHeight = height / 7;
+        String[] bold = new String[7];
+        String[] plain = new String[7];
+        for (int digit = 1; digit <= 6; digit++) {
+            bold[digit] = renderDigit(digit, GIVEN_COLOR, Font.BOLD, 
+                                      squareWidth, squareHeight);
+            plain[digit] = renderDigit(digit, Color.WHITE, Font.PLAIN, 
+                                       squareWidth, squareHeight);
         }
+        boldDigits = bold;
+        plainDigits = plain;
+        digitsWidth = width;
+        digitsHeight = height;
+    }
+    
+    /**
+    * Inputs: digit (int), color (Color), font style (int), image width and 
+              height (int)
+    * Outputs: name of the image file holding the digit (String)
+    * Description: draws one digit centered on a transparent image
+    */
+    private static String renderDigit(int digit, Color color, int style, 
+                                      int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, 
+                                                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, 
+                           RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(color);
+        g.setFont(new Font("SansSerif", style, 20));
+        FontMetrics metrics = g.getFontMetrics();
+        String stringDigit = integerToString(digit);
+        g.drawString(stringDigit, 
+                     (float) (width / 2.0 - metrics.stringWidth(stringDigit) / 2.0),
+                     (float) (height / 2.0 + metrics.getDescent()));
+        g.dispose();
+        return SudokuGrid.saveImage(image, "sudoku-digit-" + digit);
     }
     
     /**
     * Inputs: digit (int)
     * Outputs: String
-    * Description: converts a digit (int) to a String representation              
+    * Description: converts a digit (int) to a String representation, using
+                   the shared label instead of building a new String
     */
     private static String integerToString(int digit) {
-        String stringDigit = "" + digit;
-        return stringDigit;
+        return DIGIT_LABELS[digit];
     }
     
     /**
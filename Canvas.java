@@ -0,0 +1,73 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Description: an interface for the drawing calls the board makes each frame
+ * (the same names as in PennDraw). The game draws on SCREEN, which passes every
+ * call on to PennDraw. AllocationCheck draws on one that does nothing, so it can
+ * count the memory the board's own drawing code uses apart from the memory
+ * PennDraw uses inside its methods.
+ *
+ */
+
+import java.awt.Color;
+
+public interface Canvas {
+
+    // draws with PennDraw
+    Canvas SCREEN = new Canvas() {
+        public void setPenColor(Color color) {
+            PennDraw.setPenColor(color);
+        }
+
+        public void setFontSize(double pointSize) {
+            PennDraw.setFontSize(pointSize);
+        }
+
+        public void filledRectangle(double x, double y, double halfWidth,
+                                    double halfHeight) {
+            PennDraw.filledRectangle(x, y, halfWidth, halfHeight);
+        }
+
+        public void text(double x, double y, String text) {
+            PennDraw.text(x, y, text);
+        }
+
+        public void picture(double x, double y, String filename) {
+            PennDraw.picture(x, y, filename);
+        }
+
+        public void picture(double x, double y, String filename, double width,
+                            double height) {
+            PennDraw.picture(x, y, filename, width, height);
+        }
+    };
+
+    void setPenColor(Color color);
+
+    void setFontSize(double pointSize);
+
+    /**
+    * Inputs: center x, y and half the width and height (double)
+    * Outputs: void
+    */
+    void filledRectangle(double x, double y, double halfWidth, double halfHeight);
+
+    void text(double x, double y, String text);
+
+    /**
+    * Inputs: center x, y (double), name of an image file (String)
+    * Outputs: void
+    * Description: draws the image at its own size in pixels
+    */
+    void picture(double x, double y, String filename);
+
+    /**
+    * Inputs: center x, y (double), name of an image file (String), width and
+              height (double)
+    * Outputs: void
+    * Description: draws the image stretched to the width and height
+    */
+    void picture(double x, double y, String filename, double width, double height);
+}
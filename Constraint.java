@@ -0,0 +1,46 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Description: an interface for one rule of a sudoku puzzle, such as "no repeat
+ * numbers in this row" or "these squares add up to 12". Each rule lists the
+ * squares it depends on, so when one square changes only the rules on that
+ * square have to be checked again (see ConstraintSet).
+ *
+ * Squares are numbered 0-35 in row order (square = row * 6 + column) and the
+ * values of the board are passed in as an int array in the same order, with 0
+ * for an empty square. Sets of digits are bit sets where bit d is digit d.
+ *
+ */
+
+public interface Constraint {
+    
+    /**
+    * Inputs: none
+    * Outputs: the squares this rule depends on (int[])
+    */
+    int[] getCells();
+    
+    /**
+    * Inputs: values of the board (int[])
+    * Outputs: true/false (boolean)
+    * Description: returns true if the filled-in squares already break the rule
+    */
+    boolean isViolated(int[] values);
+    
+    /**
+    * Inputs: an empty square this rule depends on (int), values of the board
+              (int[])
+    * Outputs: bit set of the digits that could go in the square (int)
+    * Description: used by the solver to skip digits that would break the rule
+    */
+    int allowed(int cell, int[] values);
+    
+    /**
+    * Inputs: where to draw (Canvas)
+    * Outputs: void
+    * Description: highlights the squares of the rule on the board
+    */
+    void highlight(Canvas canvas);
+}
@@ -0,0 +1,249 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Description: a class that holds all the rules (Constraint objects) of a
+ * puzzle and keeps track of which ones are broken. For every square it keeps a
+ * list of the rules that depend on it, so after one square changes only those
+ * rules are checked again instead of scanning the whole board.
+ *
+ */
+
+import java.util.ArrayList;
+
+public class ConstraintSet {
+
+    // fields
+    private ArrayList<Constraint> constraints;
+    private int[][] watchers;
+    private boolean[] violated;
+    private int numViolated;
+    // true if a BoardSnapshot also uses the violated array
+    private boolean shared;
+    // arrays nothing uses any more, reused by the next copies
+    private boolean[][] spares;
+    private int numSpares;
+
+    // constructor, an empty set of rules
+    public ConstraintSet() {
+        this.constraints = new ArrayList<Constraint>();
+        this.watchers = new int[36][0];
+        this.violated = new boolean[0];
+        this.numViolated = 0;
+        this.shared = false;
+        this.spares = new boolean[4][];
+        this.numSpares = 0;
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: rules of a classic 6x6 puzzle: boxes, rows, then columns
+               (ConstraintSet)
+    */
+    public static ConstraintSet classic() {
+        ConstraintSet set = new ConstraintSet();
+        for (int i = 0; i < 6; i += 2) {
+            for (int j = 0; j < 6; j += 3) {
+                set.add(AllDifferent.box(i, j));
+            }
+        }
+        for (int i = 0; i < 6; i++) {
+            set.add(AllDifferent.row(i));
+        }
+        for (int j = 0; j < 6; j++) {
+            set.add(AllDifferent.column(j));
+        }
+        return set;
+    }
+
+    // getters
+    public int size() {
+        return this.constraints.size();
+    }
+
+    public Constraint get(int i) {
+        return this.constraints.get(i);
+    }
+
+    public int getNumViolated() {
+        return this.numViolated;
+    }
+
+    public boolean isViolated(int i) {
+        return this.violated[i];
+    }
+
+    /**
+    * Inputs: square 0-35 (int)
+    * Outputs: true/false (boolean)
+    * Description: returns true if any rule on the square is broken
+    */
+    public boolean isCellViolated(int cell) {
+        int[] ids = this.watchers[cell];
+        for (int i = 0; i < ids.length; i++) {
+            if (this.violated[ids[i]]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+    * Inputs: rule to add (Constraint)
+    * Outputs: void
+    * Description: adds the rule and puts it on the list of each of its squares.
+                   Call checkAll() afterwards to find out if it is broken.
+    */
+    public void add(Constraint constraint) {
+        int id = this.constraints.size();
+        this.constraints.add(constraint);
+        int[] cells = constraint.getCells();
+        for (int i = 0; i < cells.length; i++) {
+            int[] old = this.watchers[cells[i]];
+            int[] longer = new int[old.length + 1];
+            System.arraycopy(old, 0, longer, 0, old.length);
+            longer[old.length] = id;
+            this.watchers[cells[i]] = longer;
+        }
+        boolean[] grown = new boolean[id + 1];
+        System.arraycopy(this.violated, 0, grown, 0, id);
+        this.violated = grown;
+        this.shared = false;
+    }
+
+    /**
+    * Inputs: values of the board (int[])
+    * Outputs: void
+    * Description: checks every rule
+    */
+    public void checkAll(int[] values) {
+        if (this.shared) {
+            this.violated = this.unsharedCopy();
+        }
+        this.numViolated = 0;
+        for (int i = 0; i < this.constraints.size(); i++) {
+            this.violated[i] = this.constraints.get(i).isViolated(values);
+            if (this.violated[i]) {
+                this.numViolated++;
+            }
+        }
+    }
+
+    /**
+    * Inputs: square that changed (int), values of the board (int[])
+    * Outputs: void
+    * Description: checks only the rules that depend on the square
+    */
+    public void update(int cell, int[] values) {
+        int[] ids = this.watchers[cell];
+        for (int i = 0; i < ids.length; i++) {
+            boolean now = this.constraints.get(ids[i]).isViolated(values);
+            if (now != this.violated[ids[i]]) {
+                if (this.shared) {
+                    this.violated = this.unsharedCopy();
+                }
+                if (now) {
+                    this.numViolated++;
+                }
+                else {
+                    this.numViolated--;
+                }
+                this.violated[ids[i]] = now;
+            }
+        }
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: which rules are broken, indexed like get() (boolean[])
+    * Description: hands the array to a snapshot. It is copied before this set
+                   changes it again.
+    */
+    public boolean[] share() {
+        this.shared = true;
+        return this.violated;
+    }
+
+    /**
+    * Inputs: which rules are broken and how many (boolean[], int)
+    * Outputs: void
+    * Description: goes back to the state saved by share()
+    */
+    public void restore(boolean[] violated, int numViolated) {
+        boolean[] old = this.violated;
+        boolean oldShared = this.shared;
+        this.violated = violated;
+        this.numViolated = numViolated;
+        this.shared = true;
+        // an array that was never shared is in no snapshot
+        if (oldShared == false) {
+            this.recycle(old);
+        }
+    }
+    
+    /**
+    * Inputs: violated array nothing uses any more (boolean[])
+    * Outputs: void
+    * Description: keeps the array to be reused by the next copy
+    */
+    public void recycle(boolean[] old) {
+        if (old == this.violated || old.length != this.violated.length) {
+            return;
+        }
+        for (int k = 0; k < this.numSpares; k++) {
+            if (this.spares[k] == old) {
+                return;
+            }
+        }
+        if (this.numSpares < this.spares.length) {
+            this.spares[this.numSpares] = old;
+            this.numSpares++;
+        }
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: a copy of the violated array that no snapshot uses (boolean[])
+    */
+    private boolean[] unsharedCopy() {
+        boolean[] copy = null;
+        if (this.numSpares > 0) {
+            this.numSpares--;
+            copy = this.spares[this.numSpares];
+            this.spares[this.numSpares] = null;
+        }
+        if (copy == null || copy.length != this.violated.length) {
+            copy = new boolean[this.violated.length];
+        }
+        System.arraycopy(this.violated, 0, copy, 0, this.violated.length);
+        this.shared = false;
+        return copy;
+    }
+    
+    /**
+    * Inputs: an empty square (int), values of the board (int[])
+    * Outputs: bit set of the digits every rule on the square allows (int)
+    */
+    public int allowed(int cell, int[] values) {
+        int allowed = 0x7e;
+        int[] ids = this.watchers[cell];
+        for (int i = 0; i < ids.length; i++) {
+            allowed &= this.constraints.get(ids[i]).allowed(cell, values);
+        }
+        return allowed;
+    }
+
+    /**
+    * Inputs: where to draw (Canvas)
+    * Outputs: void
+    * Description: highlights every broken rule
+    */
+    public void highlight(Canvas canvas) {
+        for (int i = 0; i < this.constraints.size(); i++) {
+            if (this.violated[i]) {
+                this.constraints.get(i).highlight(canvas);
+            }
+        }
+    }
+}
@@ -0,0 +1,394 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Execution: java GameRecording [recording files...]
+ * Replays every recorded game without drawing it (add -Dsudoku.render=true
+ * after java to draw it too) and prints any game whose behavior or frame
+ * timing changed.
+ *
+ * Description: a class that records the input of a game so it can be played
+ * back exactly. drawGrid() writes one when run with -Dsudoku.record=[file].
+ * The file holds the initial board, the rules of a variant puzzle (in the format
+ * of SudokuGrid.readRules()) and every frame where a key was typed or the mouse
+ * was pressed: the frame number, the key, the mouse position, how long
+ * the frame took to update and to draw, and a hash of the board afterwards
+ * (values, moves and which rules were broken). Frames without input do not
+ * change the board, so they are only counted.
+ *
+ * Replaying sends the same input through typeKey() and clickMouse() and
+ * compares the hash after every recorded frame, so a change in highlighting or
+ * in how a key is handled shows up at the first frame it happens. Update time
+ * (and draw time when rendering) is compared with the recording, and a game is
+ * flagged as slower if it takes more than SLOWER_RATIO times as long. Both
+ * times cover the same calls: typeKey(), clickMouse() and isSolved() (plus
+ * drawFrame()), not reading the mouse and keyboard.
+ *
+ * A game's replay takes only a fraction of a millisecond, so one run says
+ * little about its speed. Each game is replayed at least TIMED_RUNS times and
+ * until the runs add up to MIN_REPLAY_NANOS, and the fastest run is used, so a
+ * slow run (garbage collection, another program) does not flag it. Before any
+ * timing starts, the first recording is replayed until its fastest run has not
+ * improved for STABLE_RUNS runs in a row, which is when the JIT compiler has
+ * finished with the replay code (at most MAX_WARM_UP_RUNS runs). Games with
+ * less recorded time than MIN_TIMED_NANOS are too noisy to time one by one, so
+ * the total over all games is compared as well.
+ *
+ * File layout (binary):
+ *   header: magic number, format version (int), initial values in row order
+ *           (36 bytes), rules (String written by writeUTF, empty if classic)
+ *   event:  type (byte, KEY and/or CLICK bits, or END), frame number (long),
+ *           key (char), mouse x, mouse y (double), update and draw time in
+ *           nanoseconds (long), board hash (long)
+ *
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+public class GameRecording {
+
+    public static final double SLOWER_RATIO = 1.5;
+    // games with less recorded frame time than this are too short to time
+    public static final long MIN_TIMED_NANOS = 5000;
+    // each game is replayed at least TIMED_RUNS times and until the runs add
+    // up to MIN_REPLAY_NANOS; the fastest one is timed
+    public static final int TIMED_RUNS = 3;
+    public static final long MIN_REPLAY_NANOS = 1000000;
+    // warming up ends once this many runs in a row were not faster
+    public static final int STABLE_RUNS = 50;
+    public static final int MAX_WARM_UP_RUNS = 5000;
+
+    private static final int MAGIC = 0x53444B52;
+    private static final int VERSION = 2;
+
+    // types of events, a frame can have both a key and a click
+    private static final int END = 0;
+    private static final int KEY = 1;
+    private static final int CLICK = 2;
+
+    // frame time of every game replayed so far
+    private static long totalRecordedNanos = 0;
+    private static long totalReplayedNanos = 0;
+
+    // fields
+    private DataOutputStream out;
+    private long frame;
+    private Thread shutdownHook;
+
+    // constructor, starts a recording of a game with the given initial values
+    // and variant rules (in the format of SudokuGrid.readRules())
+    public GameRecording(String filename, int[][] intArray, String rules) {
+        try {
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(filename)));
+            this.out.writeInt(MAGIC);
+            this.out.writeInt(VERSION);
+            for (int i = 0; i < 6; i++) {
+                for (int j = 0; j < 6; j++) {
+                    this.out.writeByte(intArray[i][j]);
+                }
+            }
+            this.out.writeUTF(rules);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Could not open " + filename, e);
+        }
+        this.frame = 0;
+        // keep the recording if the window is closed before solving
+        final GameRecording recording = this;
+        this.shutdownHook = new Thread() {
+            public void run() {
+                recording.close();
+            }
+        };
+        Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+    }
+
+    /**
+    * Inputs: board after the frame (SudokuGrid), whether a key was typed (boolean),
+              key (char), whether the mouse was pressed (boolean), mouse
+              position (double), update and draw time in nanoseconds (long)
+    * Outputs: void
+    * Description: records one frame of drawGrid()
+    */
+    public void recordFrame(SudokuGrid board, boolean keyTyped, char c,
+                            boolean mousePressed, double mouseX, double mouseY,
+                            long updateNanos, long drawNanos) {
+        int type = 0;
+        if (keyTyped) {
+            type |= KEY;
+        }
+        if (mousePressed) {
+            type |= CLICK;
+        }
+        if (type != 0) {
+            this.write(type, c, mouseX, mouseY, updateNanos, drawNanos,
+                       stateHash(board));
+        }
+        this.frame++;
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: void
+    * Description: writes the END event and closes the file, and removes the
+                   shutdown hook so it does not keep the recording in memory
+    */
+    public void close() {
+        if (this.shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+            }
+            catch (IllegalStateException e) {
+                // the program is already ending (close() was called by the hook)
+            }
+            this.shutdownHook = null;
+        }
+        try {
+            if (this.out != null) {
+                this.write(END, ' ', 0, 0, 0, 0, 0);
+                this.out.close();
+                this.out = null;
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Could not write recording", e);
+        }
+    }
+
+    /**
+    * Inputs: board (SudokuGrid)
+    * Outputs: hash of the values, moves and broken rules (long)
+    */
+    public static long stateHash(SudokuGrid board) {
+        long hash = 0xcbf29ce484222325L;
+        for (int k = 0; k < 36; k++) {
+            hash = (hash ^ board.getValue(k / 6, k % 6)) * 0x100000001b3L;
+        }
+        hash = (hash ^ board.getMoves()) * 0x100000001b3L;
+        ConstraintSet constraints = board.getConstraints();
+        for (int i = 0; i < constraints.size(); i++) {
+            int broken = 0;
+            if (constraints.isViolated(i)) {
+                broken = 1;
+            }
+            hash = (hash ^ broken) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+    * Inputs: name of a recording (String), whether to draw the frames (boolean)
+    * Outputs: description of what changed, or null if nothing did (String)
+    * Description: replays the recording at least TIMED_RUNS times and until
+                   the runs add up to MIN_REPLAY_NANOS, and compares it with 
+                   the new build, using the fastest run for the timing
+    */
+    public static String replay(String filename, boolean render) {
+        // recorded and replayed frame time of the last run
+        long[] nanos = new long[2];
+        long replayedNanos = Long.MAX_VALUE;
+        long spentNanos = 0;
+        for (int run = 0; run < TIMED_RUNS || spentNanos < MIN_REPLAY_NANOS; run++) {
+            String result = replayOnce(filename, render, nanos);
+            if (result != null) {
+                return result;
+            }
+            replayedNanos = Math.min(replayedNanos, nanos[1]);
+            spentNanos += nanos[1];
+        }
+        long recordedNanos = nanos[0];
+        totalRecordedNanos += recordedNanos;
+        totalReplayedNanos += replayedNanos;
+        if (recordedNanos >= MIN_TIMED_NANOS &&
+            replayedNanos > SLOWER_RATIO * recordedNanos) {
+            return "slower: " + (double) replayedNanos / recordedNanos +
+                   " times the recorded frame time";
+        }
+        return null;
+    }
+
+    /**
+    * Inputs: name of a recording (String), whether to draw the frames
+              (boolean), array for the recorded and replayed frame time (long[])
+    * Outputs: description of what changed, or null if nothing did (String)
+    * Description: replays the recording once and adds up both frame times
+    */
+    private static String replayOnce(String filename, boolean render, long[] nanos) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                 new FileInputStream(filename)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IllegalArgumentException(filename + " is not a recording");
+            }
+            if (in.readInt() != VERSION) {
+                throw new IllegalArgumentException(filename + " was recorded by " +
+                                                   "another version");
+            }
+            int[][] intArray = new int[6][6];
+            for (int i = 0; i < 6; i++) {
+                for (int j = 0; j < 6; j++) {
+                    intArray[i][j] = in.readByte();
+                }
+            }
+            Constraint[] variants = SudokuGrid.parseRules(in.readUTF());
+            SudokuGrid board = new SudokuGrid(intArray, variants);
+            long recordedNanos = 0;
+            long replayedNanos = 0;
+            while (true) {
+                int type = in.readByte();
+                long frame = in.readLong();
+                char c = in.readChar();
+                double mouseX = in.readDouble();
+                double mouseY = in.readDouble();
+                long updateNanos = in.readLong();
+                long drawNanos = in.readLong();
+                long hash = in.readLong();
+                if (type == END) {
+                    break;
+                }
+                if (board.isSolved()) {
+                    return "solved early, before frame " + frame;
+                }
+
+                long start = System.nanoTime();
+                if (render) {
+                    board.drawFrame();
+                    recordedNanos += drawNanos;
+                }
+                // same order as drawGrid(): the key first, then the click
+                if ((type & KEY) != 0) {
+                    board.typeKey(c, mouseX, mouseY);
+                }
+                if ((type & CLICK) != 0) {
+                    board.clickMouse(mouseX, mouseY);
+                }
+                board.isSolved();
+                replayedNanos += System.nanoTime() - start;
+                if (render) {
+                    PennDraw.advance();
+                }
+                recordedNanos += updateNanos;
+
+                if (stateHash(board) != hash) {
+                    return "board differs after frame " + frame;
+                }
+            }
+            nanos[0] = recordedNanos;
+            nanos[1] = replayedNanos;
+            return null;
+        }
+        catch (EOFException e) {
+            return "recording ends without END (game was not finished)";
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Could not read " + filename, e);
+        }
+    }
+
+    // replay every recording and print the ones that changed
+    public static void main(String[] args) {
+        boolean render = Boolean.getBoolean("sudoku.render");
+        if (render) {
+            PennDraw.setCanvasSize(SudokuGrid.CANVAS_WIDTH, SudokuGrid.CANVAS_HEIGHT);
+            PennDraw.setXscale(-.5, 6.5);
+            PennDraw.setYscale(6.5, -.5);
+            PennDraw.enableAnimation(1000);
+        }
+        int warmUpRuns = warmUp(args, render);
+        System.out.println("Warmed up with " + warmUpRuns + " replays");
+        int changed = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < args.length; i++) {
+            String result;
+            try {
+                result = replay(args[i], render);
+            }
+            catch (IllegalArgumentException e) {
+                result = "could not replay: " + e.getMessage();
+            }
+            if (result != null) {
+                changed++;
+                System.out.println(args[i] + ": " + result);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Replayed " + args.length + " games in " + seconds +
+                           " s, " + changed + " changed");
+        if (totalRecordedNanos > 0) {
+            double ratio = (double) totalReplayedNanos / totalRecordedNanos;
+            System.out.print("Frame time of all games: " + ratio + 
+                             " times the recorded frame time");
+            if (ratio > SLOWER_RATIO) {
+                System.out.print(" (slower)");
+            }
+            System.out.println();
+        }
+    }
+
+    /**
+    * Inputs: names of recordings (String[]), whether to draw the frames 
+              (boolean)
+    * Outputs: number of replays it took (int)
+    * Description: replays the first recording that replays without a change
+                   until its fastest run has not improved for STABLE_RUNS runs
+                   in a row. Recordings that cannot be replayed are skipped
+                   here; main() reports them.
+    */
+    private static int warmUp(String[] filenames, boolean render) {
+        long[] nanos = new long[2];
+        for (int i = 0; i < filenames.length; i++) {
+            long fastest = Long.MAX_VALUE;
+            int notFaster = 0;
+            int runs = 0;
+            while (notFaster < STABLE_RUNS && runs < MAX_WARM_UP_RUNS) {
+                String result;
+                try {
+                    result = replayOnce(filenames[i], render, nanos);
+                }
+                catch (IllegalArgumentException e) {
+                    result = e.getMessage();
+                }
+                if (result != null) {
+                    break;
+                }
+                runs++;
+                if (nanos[1] < fastest) {
+                    fastest = nanos[1];
+                    notFaster = 0;
+                }
+                else {
+                    notFaster++;
+                }
+            }
+            if (runs > 0) {
+                return runs;
+            }
+        }
+        return 0;
+    }
+
+    private void write(int type, char c, double mouseX, double mouseY,
+                       long updateNanos, long drawNanos, long hash) {
+        try {
+            this.out.writeByte(type);
+            this.out.writeLong(this.frame);
+            this.out.writeChar(c);
+            this.out.writeDouble(mouseX);
+            this.out.writeDouble(mouseY);
+            this.out.writeLong(updateNanos);
+            this.out.writeLong(drawNanos);
+            this.out.writeLong(hash);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Could not write recording", e);
+        }
+    }
+}
@@ -0,0 +1,293 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Execution: java GridEnumerator
+ *
+ * Description: a class that counts every valid completed 6x6 sudoku grid (there
+ * are 28,200,960 of them) and prints the total and how long it took. Used as a
+ * stress test for the row/column/box checks in SudokuGrid and Box and as a
+ * benchmark for how well the computer's cores are used. SudokuGrid's isSolved()
+ * must accept every grid found. Each grid is also broken on purpose in a few
+ * ways (two squares of a row swapped, two squares of a column swapped, a number
+ * repeated in a box, and two rows of different boxes swapped) and isSolved()
+ * must agree with a check that reads the rows, columns and boxes directly. The
+ * first three are always broken, so the direct check must reject them too; the
+ * last one is sometimes still valid.
+ *
+ * Relabeling the digits of a solved grid gives another solved grid, so only grids
+ * whose first row is 1 2 3 4 5 6 are enumerated and the count is multiplied by
+ * 6! = 720. Each fork/join task forks one task for every digit that fits in its
+ * first empty cell, until the tasks start at SPLIT_CELL; from there a task
+ * searches the rest of the grid by itself.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class GridEnumerator extends RecursiveTask<long[]> {
+
+    private static final long serialVersionUID = 1L;
+
+    // number of ways to relabel the digits 1-6
+    private static final int RELABELINGS = 720;
+    
+    // tasks starting at this cell or later do not fork any more
+    private static final int SPLIT_CELL = 15;
+    
+    // positions in the array of counts each task returns
+    private static final int FOUND = 0;
+    private static final int BROKEN = 1;
+    private static final int REJECTED = 2;
+    private static final int MISSED = 3;
+    private static final int DISAGREED = 4;
+    private static final int TASKS = 5;
+
+    // fields
+    private int[][] grid;
+    private int[] rowUsed;
+    private int[] colUsed;
+    private int[] boxUsed;
+    private int startCell;
+
+    // constructor
+    public GridEnumerator(int[][] grid, int startCell) {
+        this.grid = new int[6][6];
+        this.rowUsed = new int[6];
+        this.colUsed = new int[6];
+        this.boxUsed = new int[6];
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j < 6; j++) {
+                if (grid[i][j] != 0) {
+                    this.place(i, j, grid[i][j]);
+                }
+            }
+        }
+        this.startCell = startCell;
+    }
+
+    // run the enumeration and print the results
+    public static void main(String[] args) {
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long start = System.nanoTime();
+
+        int[][] firstRow = new int[6][6];
+        for (int j = 0; j < 6; j++) {
+            firstRow[0][j] = j + 1;
+        }
+        long[] total = pool.invoke(new GridEnumerator(firstRow, 6));
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Grids with first row 123456: " + total[FOUND]);
+        System.out.println("Total valid 6x6 grids:       " + 
+                           total[FOUND] * RELABELINGS);
+        System.out.println("Broken grids checked:        " + total[BROKEN] +
+                           " (" + total[REJECTED] + " not valid)");
+        System.out.println("Direct check missed:         " + total[MISSED]);
+        System.out.println("isSolved() disagreed:        " + total[DISAGREED]);
+        System.out.println("Tasks: " + total[TASKS] + ", threads: " +
+                           pool.getParallelism());
+        System.out.println("Elapsed time: " + seconds + " s");
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: number of completed grids found, broken grids checked, broken
+               grids that were not valid, grids sure to be broken that the
+               direct check passed, grids isSolved() got wrong and number of
+               tasks (long[])
+    * Description: before SPLIT_CELL, forks one task for every digit that fits in
+                   startCell and adds up their counts; after it, fills in the
+                   rest of the grid itself
+    */
+    protected long[] compute() {
+        long[] counts = new long[6];
+        counts[TASKS] = 1;
+        if (this.startCell >= SPLIT_CELL) {
+            this.search(this.startCell, counts);
+            return counts;
+        }
+        int row = this.startCell / 6;
+        int col = this.startCell % 6;
+        ArrayList<GridEnumerator> tasks = new ArrayList<GridEnumerator>();
+        for (int digit = 1; digit <= 6; digit++) {
+            if (this.canPlace(row, col, digit)) {
+                this.place(row, col, digit);
+                tasks.add(new GridEnumerator(this.grid, this.startCell + 1));
+                this.remove(row, col, digit);
+            }
+        }
+        for (GridEnumerator task : invokeAll(tasks)) {
+            long[] result = task.join();
+            for (int i = 0; i < counts.length; i++) {
+                counts[i] += result[i];
+            }
+        }
+        return counts;
+    }
+
+    /**
+    * Inputs: cell index 0-35 (int), running counts (long[])
+    * Outputs: void
+    * Description: backtracking search that counts every way to finish the grid
+    */
+    private void search(int cell, long[] counts) {
+        if (cell == 36) {
+            counts[FOUND]++;
+            if (new SudokuGrid(this.grid).isSolved() == false) {
+                counts[DISAGREED]++;
+            }
+            this.checkBroken(counts);
+            return;
+        }
+        int row = cell / 6;
+        int col = cell % 6;
+        for (int digit = 1; digit <= 6; digit++) {
+            if (this.canPlace(row, col, digit)) {
+                this.place(row, col, digit);
+                this.search(cell + 1, counts);
+                this.remove(row, col, digit);
+            }
+        }
+    }
+
+    /**
+    * Inputs: running counts (long[])
+    * Outputs: void
+    * Description: breaks the completed grid in a few ways, checks each broken
+                   grid with isSolved() and the direct check, and puts the
+                   grid back the way it was
+    */
+    private void checkBroken(long[] counts) {
+        int[][] g = this.grid;
+        // two squares of a row in the same box: the columns are broken
+        swap(g, 5, 0, 5, 1);
+        checkGrid(g, true, counts);
+        swap(g, 5, 0, 5, 1);
+        // two squares of a column in the same box: the rows are broken
+        swap(g, 4, 0, 5, 0);
+        checkGrid(g, true, counts);
+        swap(g, 4, 0, 5, 0);
+        // a number repeated in the bottom left box
+        int saved = g[5][2];
+        g[5][2] = g[4][0];
+        checkGrid(g, true, counts);
+        g[5][2] = saved;
+        // rows 1 and 2 swapped: rows and columns are still fine, the boxes may
+        // or may not be
+        for (int j = 0; j < 6; j++) {
+            swap(g, 1, j, 2, j);
+        }
+        checkGrid(g, false, counts);
+        for (int j = 0; j < 6; j++) {
+            swap(g, 1, j, 2, j);
+        }
+    }
+    
+    /**
+    * Inputs: grid (int[][]), true if it is sure to be broken (boolean), 
+              running counts (long[])
+    * Outputs: void
+    * Description: counts the grid, and counts it again if isSolved() does not
+                   agree with the direct check
+    */
+    private static void checkGrid(int[][] grid, boolean broken, long[] counts) {
+        counts[BROKEN]++;
+        boolean valid = isValidGrid(grid);
+        if (valid == false) {
+            counts[REJECTED]++;
+        }
+        else if (broken) {
+            counts[MISSED]++;
+        }
+        if (new SudokuGrid(grid).isSolved() != valid) {
+            counts[DISAGREED]++;
+        }
+    }
+    
+    private static void swap(int[][] grid, int row1, int col1, int row2, int col2) {
+        int value = grid[row1][col1];
+        grid[row1][col1] = grid[row2][col2];
+        grid[row2][col2] = value;
+    }
+
+    /**
+    * Inputs: completed grid (int[][])
+    * Outputs: true/false (boolean)
+    * Description: returns true if every row, column and 2x3 box holds each
+                   digit 1-6 once. Reads the grid itself instead of using the
+                   search's used-digit masks or the game's checks, so it also
+                   works on the broken grids.
+    */
+    private static boolean isValidGrid(int[][] grid) {
+        // bits 1-6 set: each digit seen once in a group of 6 squares
+        int allDigits = 0x7e;
+        for (int i = 0; i < 6; i++) {
+            int rowDigits = 0;
+            int colDigits = 0;
+            int boxDigits = 0;
+            for (int j = 0; j < 6; j++) {
+                rowDigits |= 1 << grid[i][j];
+                colDigits |= 1 << grid[j][i];
+                // box i holds 2 rows of 3 squares
+                boxDigits |= 1 << grid[(i / 2) * 2 + j / 3][(i % 2) * 3 + j % 3];
+            }
+            if (rowDigits != allDigits || colDigits != allDigits || 
+                boxDigits != allDigits) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+    * Inputs: row, column (int)
+    * Outputs: index 0-5 of the 2x3 box containing the square (int)
+    * Description: boxes are numbered left to right, top to bottom
+    */
+    private static int boxIndex(int row, int col) {
+        return (row / 2) * 2 + col / 3;
+    }
+
+    /**
+    * Inputs: row, column, digit (int)
+    * Outputs: true/false (boolean)
+    * Description: returns true if the digit is not already in the row, column
+                   or box of the square
+    */
+    private boolean canPlace(int row, int col, int digit) {
+        int bit = 1 << digit;
+        return (this.rowUsed[row] & bit) == 0 &&
+               (this.colUsed[col] & bit) == 0 &&
+               (this.boxUsed[boxIndex(row, col)] & bit) == 0;
+    }
+
+    /**
+    * Inputs: row, column, digit (int)
+    * Outputs: void
+    * Description: puts the digit in the square and marks it as used
+    */
+    private void place(int row, int col, int digit) {
+        int bit = 1 << digit;
+        this.grid[row][col] = digit;
+        this.rowUsed[row] |= bit;
+        this.colUsed[col] |= bit;
+        this.boxUsed[boxIndex(row, col)] |= bit;
+    }
+
+    /**
+    * Inputs: row, column, digit (int)
+    * Outputs: void
+    * Description: empties the square and marks the digit as unused
+    */
+    private void remove(int row, int col, int digit) {
+        int bit = 1 << digit;
+        this.grid[row][col] = 0;
+        this.rowUsed[row] &= ~bit;
+        this.colUsed[col] &= ~bit;
+        this.boxUsed[boxIndex(row, col)] &= ~bit;
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Description: a killer sudoku cage. The squares of the cage cannot repeat a
+ * number and must add up to the cage's sum when they are all filled in.
+ *
+ */
+
+public class KillerCage implements Constraint {
+    
+    // fields
+    private int[] cells;
+    private int sum;
+    
+    // constructor
+    public KillerCage(int[] cells, int sum) {
+        this.cells = cells;
+        this.sum = sum;
+    }
+    
+    public int[] getCells() {
+        return this.cells;
+    }
+    
+    public boolean isViolated(int[] values) {
+        int seen = 0;
+        int total = 0;
+        boolean filledIn = true;
+        for (int i = 0; i < this.cells.length; i++) {
+            int digit = values[this.cells[i]];
+            if (digit == 0) {
+                filledIn = false;
+                continue;
+            }
+            if ((seen & (1 << digit)) != 0) {
+                return true;
+            }
+            seen |= 1 << digit;
+            total += digit;
+        }
+        return total > this.sum || (filledIn && total != this.sum);
+    }
+    
+    public int allowed(int cell, int[] values) {
+        int used = 0;
+        int total = 0;
+        int empty = 0;
+        for (int i = 0; i < this.cells.length; i++) {
+            if (this.cells[i] == cell) {
+                continue;
+            }
+            int digit = values[this.cells[i]];
+            if (digit == 0) {
+                empty++;
+            }
+            used |= 1 << digit;
+            total += digit;
+        }
+        // the other empty squares need at least 1 + 2 + ... + empty
+        int most = this.sum - total - empty * (empty + 1) / 2;
+        int allowed = 0;
+        for (int digit = 1; digit <= 6 && digit <= most; digit++) {
+            if (empty > 0 || digit == most) {
+                allowed |= 1 << digit;
+            }
+        }
+        return allowed & ~used;
+    }
+    
+    public void highlight(Canvas canvas) {
+        canvas.setPenColor(AllDifferent.OTHER_COLOR);
+        for (int i = 0; i < this.cells.length; i++) {
+            canvas.filledRectangle(this.cells[i] % 6 + 0.5, 
+                                   this.cells[i] / 6 + 0.5, 0.5, 0.5);
+        }
+    }
+}
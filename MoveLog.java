@@ -0,0 +1,155 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Description: a class that records every move of a game into a binary log
+ * file. The file is only ever appended to, so many games (sessions) can be
+ * written to the same file one after another. Events are buffered in memory and
+ * written in large blocks. MoveLogAnalyzer reads these files back. If the
+ * program was killed while writing, the file may end in part of an event; that
+ * part is cut off when the file is opened again, so every event still starts
+ * at a multiple of EVENT_BYTES. Writing and closing are synchronized, because
+ * the shutdown hook closes the log on another thread while the game may still
+ * be writing moves.
+ *
+ * Each event is 20 bytes:
+ *   bytes 0-7    session id (random, one per game)
+ *   bytes 8-15   time in milliseconds since 1970
+ *   byte  16     type (START, MOVE, RESET or SOLVED)
+ *   byte  17     square 0-35 in row order (-1 if not a move)
+ *   byte  18     digit typed (0 if not a move)
+ *   byte  19     1 if the square breaks a rule after the move, else 0
+ *
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+
+public class MoveLog {
+
+    public static final int EVENT_BYTES = 20;
+
+    // types of events
+    public static final int START = 0;
+    public static final int MOVE = 1;
+    public static final int RESET = 2;
+    public static final int SOLVED = 3;
+
+    // fields
+    private DataOutputStream out;
+    private long session;
+    private Thread shutdownHook;
+    private boolean closed;
+
+    // constructor, opens the file for appending and starts a new session
+    public MoveLog(String filename) {
+        try {
+            // drop a partly written event left by a game that was killed
+            File file = new File(filename);
+            long torn = file.length() % EVENT_BYTES;
+            if (torn != 0) {
+                try (RandomAccessFile cut = new RandomAccessFile(file, "rw")) {
+                    cut.setLength(file.length() - torn);
+                }
+            }
+            this.out = new DataOutputStream(new BufferedOutputStream(
+                new FileOutputStream(filename, true), EVENT_BYTES * 1024));
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Could not open " + filename, e);
+        }
+        this.session = new Random().nextLong();
+        this.closed = false;
+        this.write(START, -1, 0, false);
+        // keep the buffered moves if the window is closed before solving
+        final MoveLog log = this;
+        this.shutdownHook = new Thread() {
+            public void run() {
+                log.close();
+            }
+        };
+        Runtime.getRuntime().addShutdownHook(this.shutdownHook);
+    }
+
+    // getters
+    public long getSession() {
+        return this.session;
+    }
+
+    /**
+    * Inputs: square 0-35, digit typed, whether the square breaks a rule after
+              the move (int, int, boolean)
+    * Outputs: void
+    */
+    public void recordMove(int cell, int digit, boolean conflict) {
+        this.write(MOVE, cell, digit, conflict);
+    }
+
+    public void recordReset() {
+        this.write(RESET, -1, 0, false);
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: void
+    * Description: records that the puzzle was solved and closes the file
+    */
+    public void recordSolved() {
+        this.write(SOLVED, -1, 0, false);
+        this.close();
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: void
+    * Description: writes any buffered events and closes the file. The shutdown
+                   hook is removed so it does not keep this log (and its
+                   buffer) until the program ends. Events recorded after this
+                   are ignored.
+    */
+    public synchronized void close() {
+        if (this.closed) {
+            return;
+        }
+        this.closed = true;
+        if (this.shutdownHook != null) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(this.shutdownHook);
+            }
+            catch (IllegalStateException e) {
+                // the program is already ending (close() was called by the hook)
+            }
+            this.shutdownHook = null;
+        }
+        try {
+            this.out.close();
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Could not write move log", e);
+        }
+    }
+
+    private synchronized void write(int type, int cell, int digit, 
+                                    boolean conflict) {
+        if (this.closed) {
+            return;
+        }
+        try {
+            this.out.writeLong(this.session);
+            this.out.writeLong(System.currentTimeMillis());
+            this.out.writeByte(type);
+            this.out.writeByte(cell);
+            this.out.writeByte(digit);
+            this.out.writeByte(conflict ? 1 : 0);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Could not write move log", e);
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Execution: java MoveLogAnalyzer [move log files...]
+ *
+ * Description: a class that reads move logs written by MoveLog and prints, for
+ * every square, the average time players spent before filling it in (dwell
+ * time) and how often the move broke a rule (error rate), plus how long it took
+ * to solve each puzzle. The files are read one event at a time and only the
+ * sessions that have not finished yet are kept in memory, so the logs of
+ * millions of sessions can be analyzed without loading them.
+ *
+ * Dwell time of a move is the time since the previous event of the same
+ * session. Time to solve is the time from START to SOLVED. A session that never
+ * reaches SOLVED is counted as abandoned; so is a session with no events for
+ * IDLE_TIMEOUT_MILLIS before the latest event of its file, which is dropped from
+ * memory then instead of at the end of the file (later events of that session
+ * are ignored). Every game writes all its events to one file, so the sessions
+ * still open at the end of a file are abandoned, and each file is timed by its
+ * own clock. A file that ends in the middle of an event (the game was killed
+ * while writing) is read up to the last whole event, and the partial one is
+ * counted and skipped.
+ *
+ */
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Iterator;
+
+public class MoveLogAnalyzer {
+
+    // solve times are counted in 1 second buckets up to one hour
+    private static final int BUCKETS = 3600;
+    
+    // a session with no events for this long is counted as abandoned
+    private static final long IDLE_TIMEOUT_MILLIS = 6L * 60 * 60 * 1000;
+    // open sessions are checked for the timeout once every this many events
+    private static final int EXPIRE_EVERY = 100000;
+
+    // fields (per square)
+    private long[] dwellMillis;
+    private long[] moves;
+    private long[] errors;
+
+    // fields (per session)
+    private HashMap<Long, long[]> openSessions;
+    private long[] solveHistogram;
+    private long solvedSessions;
+    private long abandonedSessions;
+    private long totalSolveMillis;
+    private long events;
+    private long partialEvents;
+    private long latestMillis;
+
+    // constructor
+    public MoveLogAnalyzer() {
+        this.dwellMillis = new long[36];
+        this.moves = new long[36];
+        this.errors = new long[36];
+        this.openSessions = new HashMap<Long, long[]>();
+        this.solveHistogram = new long[BUCKETS + 1];
+    }
+
+    // analyze every log file and print the results
+    public static void main(String[] args) {
+        MoveLogAnalyzer analyzer = new MoveLogAnalyzer();
+        for (int i = 0; i < args.length; i++) {
+            analyzer.read(args[i]);
+        }
+        analyzer.finish();
+        analyzer.printResults();
+    }
+
+    /**
+    * Inputs: name of a move log file (String)
+    * Outputs: void
+    * Description: reads every whole event in the file, then counts the
+                   sessions the file left open as abandoned
+    */
+    public void read(String filename) {
+        byte[] event = new byte[MoveLog.EVENT_BYTES];
+        ByteBuffer fields = ByteBuffer.wrap(event);
+        // idle sessions are timed from this file's own latest event
+        this.latestMillis = Long.MIN_VALUE;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                 new FileInputStream(filename), MoveLog.EVENT_BYTES * 4096))) {
+            while (true) {
+                int length = in.readNBytes(event, 0, event.length);
+                if (length < event.length) {
+                    if (length > 0) {
+                        this.partialEvents++;
+                    }
+                    break;
+                }
+                long session = fields.getLong(0);
+                long time = fields.getLong(8);
+                int type = fields.get(16);
+                int cell = fields.get(17);
+                boolean conflict = fields.get(19) != 0;
+                this.add(session, time, type, cell, conflict);
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Could not read " + filename, e);
+        }
+        this.finish();
+    }
+
+    /**
+    * Inputs: one event (long, long, int, int, boolean)
+    * Outputs: void
+    * Description: adds the event to the totals. The state of an open session
+                   is {start time, time of last event}.
+    */
+    public void add(long session, long time, int type, int cell,
+                    boolean conflict) {
+        this.events++;
+        this.latestMillis = Math.max(this.latestMillis, time);
+        if (this.events % EXPIRE_EVERY == 0) {
+            this.expireIdleSessions();
+        }
+        if (type == MoveLog.START) {
+            if (this.openSessions.containsKey(session)) {
+                this.abandonedSessions++;
+            }
+            long[] state = {time, time};
+            this.openSessions.put(session, state);
+            return;
+        }
+        long[] state = this.openSessions.get(session);
+        if (state == null) {
+            // the START event was in a file that was not read
+            return;
+        }
+        if (type == MoveLog.MOVE && cell >= 0 && cell < 36) {
+            this.dwellMillis[cell] += time - state[1];
+            this.moves[cell]++;
+            if (conflict) {
+                this.errors[cell]++;
+            }
+        }
+        state[1] = time;
+        if (type == MoveLog.SOLVED) {
+            long solveMillis = time - state[0];
+            this.totalSolveMillis += solveMillis;
+            this.solvedSessions++;
+            int bucket = (int) Math.min(BUCKETS, solveMillis / 1000);
+            this.solveHistogram[bucket]++;
+            this.openSessions.remove(session);
+        }
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: void
+    * Description: counts sessions with no events for IDLE_TIMEOUT_MILLIS before
+                   the latest event of the file as abandoned and forgets them
+    */
+    private void expireIdleSessions() {
+        Iterator<long[]> states = this.openSessions.values().iterator();
+        while (states.hasNext()) {
+            if (this.latestMillis - states.next()[1] > IDLE_TIMEOUT_MILLIS) {
+                states.remove();
+                this.abandonedSessions++;
+            }
+        }
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: void
+    * Description: counts sessions that never finished as abandoned (read()
+                   calls this at the end of every file)
+    */
+    public void finish() {
+        this.abandonedSessions += this.openSessions.size();
+        this.openSessions.clear();
+    }
+
+    /**
+    * Inputs: fraction of solved sessions, for example 0.5 for the median (double)
+    * Outputs: solve time in seconds that fraction of sessions finished within
+               (int)
+    */
+    public int solvePercentile(double fraction) {
+        long target = (long) Math.ceil(fraction * this.solvedSessions);
+        long seen = 0;
+        for (int i = 0; i <= BUCKETS; i++) {
+            seen += this.solveHistogram[i];
+            if (seen >= target && seen > 0) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    public void printResults() {
+        System.out.println("Events: " + this.events);
+        if (this.partialEvents > 0) {
+            System.out.println("Partial events at the end of a file (skipped): " +
+                               this.partialEvents);
+        }
+        System.out.println("Solved sessions: " + this.solvedSessions +
+                           ", abandoned: " + this.abandonedSessions);
+        if (this.solvedSessions > 0) {
+            System.out.println("Average time to solve: " +
+                               this.totalSolveMillis / this.solvedSessions / 1000.0 +
+                               " s, median under " + this.solvePercentile(0.5) +
+                               " s, 90% under " + this.solvePercentile(0.9) + " s");
+        }
+        System.out.println("Square  moves  avg dwell (s)  error rate");
+        for (int k = 0; k < 36; k++) {
+            if (this.moves[k] == 0) {
+                continue;
+            }
+            System.out.println("(" + k / 6 + "," + k % 6 + ")   " + this.moves[k] +
+                               "  " + this.dwellMillis[k] / this.moves[k] / 1000.0 +
+                               "  " + (double) this.errors[k] / this.moves[k]);
+        }
+    }
+}
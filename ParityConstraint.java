@@ -0,0 +1,55 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Description: an odd/even sudoku rule. Every square listed must hold an odd
+ * number (or an even number).
+ *
+ */
+
+public class ParityConstraint implements Constraint {
+    
+    // digits 1, 3, 5 and 2, 4, 6 as bit sets
+    private static final int ODD_DIGITS = 0x2a;
+    private static final int EVEN_DIGITS = 0x54;
+    
+    // fields
+    private int[] cells;
+    private boolean odd;
+    
+    // constructor
+    public ParityConstraint(int[] cells, boolean odd) {
+        this.cells = cells;
+        this.odd = odd;
+    }
+    
+    public int[] getCells() {
+        return this.cells;
+    }
+    
+    public boolean isViolated(int[] values) {
+        for (int i = 0; i < this.cells.length; i++) {
+            int digit = values[this.cells[i]];
+            if (digit != 0 && (digit % 2 == 1) != this.odd) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    public int allowed(int cell, int[] values) {
+        if (this.odd) {
+            return ODD_DIGITS;
+        }
+        return EVEN_DIGITS;
+    }
+    
+    public void highlight(Canvas canvas) {
+        canvas.setPenColor(AllDifferent.OTHER_COLOR);
+        for (int i = 0; i < this.cells.length; i++) {
+            canvas.filledRectangle(this.cells[i] % 6 + 0.5, 
+                                   this.cells[i] / 6 + 0.5, 0.5, 0.5);
+        }
+    }
+}
@@ -0,0 +1,312 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Execution: java PuzzleReader [corpus file]
+ * Reads every puzzle in the file and prints how many there were, the board
+ * size, and how long it took.
+ *
+ * Description: a class that reads a collection of puzzles from one text file
+ * (a corpus), one puzzle per line, instead of one file per puzzle. The file is
+ * read a line at a time, so it can be any size and memory use stays the same.
+ * It can also be gzip-compressed; this is recognized from the first two bytes
+ * of the file, whatever its name. Puzzles are handed back one at a time with
+ * next() or in groups with nextBatch().
+ *
+ * Corpus format:
+ *   - Each puzzle is a single line listing the squares in row order. Digits
+ *     1-9 and then letters A-Z (10-35) are values, and lowercase letters a-z
+ *     are the same as uppercase; '.' or '0' is an empty square.
+ *   - Lines starting with '#' are comments. A header line "# box [rows] [cols]"
+ *     gives the size of a box (for example "# box 2 3" for the 6x6 boards used
+ *     by SudokuGrid); the board then has rows * cols rows and columns.
+ *   - Without a header the box size comes from the line length: 36 characters
+ *     is 6x6 with 2x3 boxes, 81 is 9x9 with 3x3 boxes (also 16 for 4x4 and 256
+ *     for 16x16).
+ *   - Blank lines are skipped, spaces and tabs at the start of a line are
+ *     ignored, and so is anything after the next space or tab on the line
+ *     (such as a puzzle name or rating).
+ * A line that is the wrong length, has an illegal character, or has two of the
+ * same number in a row/column/box is an error, just like in readInFile().
+ *
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+
+public class PuzzleReader implements AutoCloseable {
+
+    // fields
+    private BufferedReader in;
+    private int boxRows;
+    private int boxCols;
+    private boolean headerGiven;
+    private long lineNumber;
+
+    // constructor, opens the corpus (gzip-compressed if it starts like gzip)
+    public PuzzleReader(String filename) {
+        try {
+            InputStream stream = new BufferedInputStream(
+                new FileInputStream(filename), 1 << 16);
+            stream.mark(2);
+            int first = stream.read();
+            int second = stream.read();
+            stream.reset();
+            if (first == 0x1f && second == 0x8b) {
+                stream = new GZIPInputStream(stream, 1 << 16);
+            }
+            this.in = new BufferedReader(new InputStreamReader(stream,
+                StandardCharsets.US_ASCII), 1 << 16);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Could not open " + filename, e);
+        }
+        this.boxRows = 0;
+        this.boxCols = 0;
+        this.headerGiven = false;
+        this.lineNumber = 0;
+    }
+
+    // getters, box size is 0 until the first header or puzzle is read
+    public int getBoxRows() {
+        return this.boxRows;
+    }
+
+    public int getBoxCols() {
+        return this.boxCols;
+    }
+
+    public long getLineNumber() {
+        return this.lineNumber;
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: the next puzzle as a size x size int array with 0 for empty
+               squares, or null if there are no more (int[][])
+    */
+    public int[][] next() {
+        while (true) {
+            String line;
+            try {
+                line = this.in.readLine();
+            }
+            catch (IOException e) {
+                throw new IllegalStateException("Could not read corpus", e);
+            }
+            if (line == null) {
+                return null;
+            }
+            this.lineNumber++;
+            int start = 0;
+            while (start < line.length() && (line.charAt(start) == ' ' ||
+                   line.charAt(start) == '\t')) {
+                start++;
+            }
+            if (start == line.length()) {
+                continue;
+            }
+            if (line.charAt(start) == '#') {
+                this.readHeader(line.substring(start));
+                continue;
+            }
+            int end = start;
+            while (end < line.length() && line.charAt(end) != ' ' &&
+                   line.charAt(end) != '\t') {
+                end++;
+            }
+            return this.parse(line, start, end);
+        }
+    }
+
+    /**
+    * Inputs: largest number of puzzles to read (int)
+    * Outputs: the next puzzles; fewer than asked for at the end of the file and
+               none after it (int[][][])
+    */
+    public int[][][] nextBatch(int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Batch size is negative: " + count);
+        }
+        int[][][] batch = new int[count][][];
+        int n = 0;
+        while (n < count) {
+            int[][] puzzle = this.next();
+            if (puzzle == null) {
+                break;
+            }
+            batch[n] = puzzle;
+            n++;
+        }
+        if (n == count) {
+            return batch;
+        }
+        int[][][] shorter = new int[n][][];
+        System.arraycopy(batch, 0, shorter, 0, n);
+        return shorter;
+    }
+
+    public void close() {
+        try {
+            this.in.close();
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Could not close corpus", e);
+        }
+    }
+
+    // count the puzzles in a corpus and time it
+    public static void main(String[] args) {
+        long start = System.nanoTime();
+        long count = 0;
+        int size = 0;
+        try (PuzzleReader reader = new PuzzleReader(args[0])) {
+            int[][][] batch = reader.nextBatch(1024);
+            while (batch.length > 0) {
+                count += batch.length;
+                size = batch[0].length;
+                batch = reader.nextBatch(1024);
+            }
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.println("Puzzles: " + count + " (" + size + "x" + size + ")");
+        System.out.println("Elapsed time: " + seconds + " s, " + count / seconds +
+                           " puzzles per second");
+    }
+
+    /**
+    * Inputs: comment line (String)
+    * Outputs: void
+    * Description: sets the box size if the line is a "# box [rows] [cols]" header
+    */
+    private void readHeader(String line) {
+        String[] parts = line.substring(1).trim().split("\\s+");
+        if (parts.length == 3 && parts[0].equalsIgnoreCase("box")) {
+            int rows = Integer.parseInt(parts[1]);
+            int cols = Integer.parseInt(parts[2]);
+            if (rows < 1 || cols < 1 || rows * cols > 35) {
+                throw new IllegalArgumentException("Line " + this.lineNumber +
+                                                   ": box size not supported");
+            }
+            this.boxRows = rows;
+            this.boxCols = cols;
+            this.headerGiven = true;
+        }
+    }
+
+    /**
+    * Inputs: puzzle line, index of the first character of the puzzle and of
+              the one after its last (String, int, int)
+    * Outputs: the puzzle (int[][])
+    * Description: turns the line into an int array and checks it
+    */
+    private int[][] parse(String line, int start, int end) {
+        int length = end - start;
+        if (this.headerGiven == false) {
+            this.guessBoxSize(length);
+        }
+        int size = this.boxRows * this.boxCols;
+        if (length != size * size) {
+            throw new IllegalArgumentException("Line " + this.lineNumber +
+                                               ": puzzle length is not " +
+                                               size * size);
+        }
+        int[][] intArray = new int[size][size];
+        for (int k = 0; k < length; k++) {
+            char c = line.charAt(start + k);
+            int value;
+            if (c == '.' || c == '0') {
+                value = 0;
+            }
+            else if (c >= '1' && c <= '9') {
+                value = c - '0';
+            }
+            else if (c >= 'A' && c <= 'Z') {
+                value = c - 'A' + 10;
+            }
+            else if (c >= 'a' && c <= 'z') {
+                value = c - 'a' + 10;
+            }
+            else {
+                value = -1;
+            }
+            if (value < 0 || value > size) {
+                throw new IllegalArgumentException("Line " + this.lineNumber +
+                                                   ": invalid character");
+            }
+            intArray[k / size][k % size] = value;
+        }
+        this.checkRepeats(intArray);
+        return intArray;
+    }
+
+    /**
+    * Inputs: length of a puzzle line (int)
+    * Outputs: void
+    * Description: picks the box size from the line length when there is no
+                   header
+    */
+    private void guessBoxSize(int length) {
+        if (length == 16) {
+            this.boxRows = 2;
+            this.boxCols = 2;
+        }
+        else if (length == 36) {
+            this.boxRows = 2;
+            this.boxCols = 3;
+        }
+        else if (length == 81) {
+            this.boxRows = 3;
+            this.boxCols = 3;
+        }
+        else if (length == 256) {
+            this.boxRows = 4;
+            this.boxCols = 4;
+        }
+        else {
+            throw new IllegalArgumentException("Line " + this.lineNumber +
+                                               ": unknown puzzle length " +
+                                               length + " and no box header");
+        }
+    }
+
+    /**
+    * Inputs: puzzle (int[][])
+    * Outputs: void
+    * Description: no row, column or box should have two of the same number
+    */
+    private void checkRepeats(int[][] intArray) {
+        int size = intArray.length;
+        for (int unit = 0; unit < size; unit++) {
+            long row = 0;
+            long col = 0;
+            long box = 0;
+            int boxTop = (unit / this.boxRows) * this.boxRows;
+            int boxLeft = (unit % this.boxRows) * this.boxCols;
+            for (int k = 0; k < size; k++) {
+                row = this.addDigit(row, intArray[unit][k], "Row");
+                col = this.addDigit(col, intArray[k][unit], "Column");
+                box = this.addDigit(box, intArray[boxTop + k / this.boxCols]
+                                                 [boxLeft + k % this.boxCols], "Box");
+            }
+        }
+    }
+
+    private long addDigit(long seen, int digit, String unit) {
+        if (digit == 0) {
+            return seen;
+        }
+        if ((seen & (1L << digit)) != 0) {
+            throw new IllegalArgumentException("Line " + this.lineNumber + ": " +
+                                               unit + " has repeat #s");
+        }
+        return seen | (1L << digit);
+    }
+}
@@ -0,0 +1,556 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Execution: java PuzzleStore build [store file] [puzzle files...]
+ *            java PuzzleStore import [store file] [corpus file]
+ *            java PuzzleStore get [store file] [puzzle id]
+ *            java PuzzleStore find [store file] [puzzle file]
+ * "build" reads each puzzle file with SudokuGrid.readInFile(), solves it, and
+ * writes all of them into one store file. "import" does the same for every
+ * 6x6 puzzle in a corpus file read with PuzzleReader. "get" prints the puzzle
+ * with the given id and "find" prints the id of a puzzle with the same initial
+ * values.
+ *
+ * Description: a class for a library of puzzles kept in one binary file instead
+ * of one text file per puzzle. Every puzzle is a fixed-width record, so puzzle
+ * number id is always at the same offset and can be found without reading the
+ * rest of the file. The file is memory-mapped (read by the operating system
+ * straight from disk, not copied onto the Java heap). A second file (the store
+ * name + ".idx") is a hash table from the initial values of a puzzle to its id.
+ *
+ * Store file layout:
+ *   header (64 bytes): magic number, version, rows, columns, number of records
+ *   record (48 bytes each):
+ *     bytes 0-17   initial values, 4 bits per square, 0 = empty
+ *     bytes 18-35  solution, 4 bits per square (all 0 if not solved)
+ *     bytes 36-43  hash of the initial values
+ *     byte  44     number of initial values
+ *     byte  45     difficulty (0 = unknown)
+ *     bytes 46-47  flags (bit 0 = has solution)
+ * Index file layout:
+ *   header (8 bytes): number of slots (a power of 2)
+ *   slot (8 bytes each): puzzle id + 1, or 0 if the slot is empty
+ *
+ * A mapped buffer can be at most 2GB, so both files are mapped in segments.
+ *
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+public class PuzzleStore {
+
+    public static final int SIZE = 6;
+    public static final int HEADER_BYTES = 64;
+    public static final int RECORD_BYTES = 48;
+    public static final int FLAG_HAS_SOLUTION = 1;
+
+    private static final int MAGIC = 0x53444B53;
+    private static final int VERSION = 1;
+    private static final int PACKED_BYTES = 18;
+    private static final int HASH_OFFSET = 36;
+    private static final int GIVENS_OFFSET = 44;
+    private static final int DIFFICULTY_OFFSET = 45;
+    private static final int FLAGS_OFFSET = 46;
+
+    // records and index slots in each mapped segment
+    private static final int RECORDS_PER_SEGMENT = 1 << 22;
+    private static final int SLOTS_PER_SEGMENT = 1 << 27;
+
+    // fields
+    private MappedByteBuffer[] records;
+    private MappedByteBuffer[] index;
+    private long count;
+    private long slots;
+
+    // constructor, opens an existing store and its index for reading
+    public PuzzleStore(String filename) {
+        try (RandomAccessFile file = new RandomAccessFile(filename, "r");
+             FileChannel channel = file.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            channel.read(header, 0);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION ||
+                header.getInt(8) != SIZE || header.getInt(12) != SIZE) {
+                throw new IllegalArgumentException("Not a 6x6 puzzle store");
+            }
+            this.count = header.getLong(16);
+            if (channel.size() < HEADER_BYTES + this.count * RECORD_BYTES) {
+                throw new IllegalArgumentException("Puzzle store is truncated");
+            }
+            this.records = mapSegments(channel, HEADER_BYTES, this.count,
+                                       RECORD_BYTES, RECORDS_PER_SEGMENT);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Could not open " + filename, e);
+        }
+
+        try (RandomAccessFile file = new RandomAccessFile(filename + ".idx", "r");
+             FileChannel channel = file.getChannel()) {
+            ByteBuffer header = ByteBuffer.allocate(8);
+            channel.read(header, 0);
+            this.slots = header.getLong(0);
+            this.index = mapSegments(channel, 8, this.slots, 8, SLOTS_PER_SEGMENT);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Could not open index for " +
+                                               filename, e);
+        }
+    }
+
+    // getters
+    public long getCount() {
+        return this.count;
+    }
+
+    /**
+    * Inputs: puzzle id, row, column (long, int, int)
+    * Outputs: initial value of the square, 0 if empty (int)
+    * Description: reads one square straight from the mapped file
+    */
+    public int getGiven(long id, int row, int col) {
+        return this.getPacked(id, 0, row * SIZE + col);
+    }
+
+    /**
+    * Inputs: puzzle id, row, column (long, int, int)
+    * Outputs: solution value of the square, 0 if not solved (int)
+    * Description: reads one square straight from the mapped file
+    */
+    public int getSolution(long id, int row, int col) {
+        return this.getPacked(id, PACKED_BYTES, row * SIZE + col);
+    }
+
+    public long getHash(long id) {
+        return this.segment(id).getLong(this.offset(id) + HASH_OFFSET);
+    }
+
+    public int getNumGivens(long id) {
+        return this.segment(id).get(this.offset(id) + GIVENS_OFFSET);
+    }
+
+    public int getDifficulty(long id) {
+        return this.segment(id).get(this.offset(id) + DIFFICULTY_OFFSET);
+    }
+
+    public boolean hasSolution(long id) {
+        int flags = this.segment(id).getShort(this.offset(id) + FLAGS_OFFSET);
+        return (flags & FLAG_HAS_SOLUTION) != 0;
+    }
+
+    /**
+    * Inputs: puzzle id (long)
+    * Outputs: 6x6 int array with the initial values (int[][])
+    * Description: copies the initial values of one puzzle into the same kind of
+                   array readInFile() returns, so it can be passed to SudokuGrid
+                   (check it with SudokuGrid.checkInitial() first)
+    */
+    public int[][] readPuzzle(long id) {
+        int[][] intArray = new int[SIZE][SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                intArray[i][j] = this.getGiven(id, i, j);
+            }
+        }
+        return intArray;
+    }
+
+    /**
+    * Inputs: 6x6 int array with initial values (int[][])
+    * Outputs: id of a puzzle with the same initial values, -1 if none (long)
+    * Description: looks up the puzzle in the hash index
+    */
+    public long find(int[][] intArray) {
+        byte[] packed = pack(intArray);
+        long hash = hash(packed);
+        long mask = this.slots - 1;
+        for (long slot = hash & mask; ; slot = (slot + 1) & mask) {
+            long entry = this.getSlot(slot);
+            if (entry == 0) {
+                return -1;
+            }
+            long id = entry - 1;
+            if (this.getHash(id) == hash && this.sameGivens(id, packed)) {
+                return id;
+            }
+        }
+    }
+
+    /**
+    * Inputs: store file name (String), puzzle files (String[])
+    * Outputs: void
+    * Description: reads, solves, and writes every puzzle file into a new store
+    */
+    public static void build(String filename, String[] puzzleFiles) {
+        Writer writer = new Writer(filename);
+        boolean written = false;
+        try {
+            for (int i = 0; i < puzzleFiles.length; i++) {
+                int[][] intArray = SudokuGrid.readInFile(puzzleFiles[i]);
+                int[][] solution = new SudokuSolver().solve(intArray);
+                writer.add(intArray, solution, 0);
+            }
+            writer.close();
+            written = true;
+        }
+        finally {
+            if (written == false) {
+                writer.abandon();
+            }
+        }
+    }
+
+    /**
+    * Inputs: store file name (String), corpus file name (String)
+    * Outputs: number of puzzles written (long)
+    * Description: streams every puzzle of a 6x6 corpus into a new store
+    */
+    public static long importCorpus(String filename, String corpus) {
+        Writer writer = new Writer(filename);
+        SudokuSolver solver = new SudokuSolver();
+        long count = 0;
+        boolean written = false;
+        try (PuzzleReader reader = new PuzzleReader(corpus)) {
+            int[][] intArray = reader.next();
+            while (intArray != null) {
+                // a 6x6 board with 3x2 boxes would be stored as a 2x3 puzzle
+                if (reader.getBoxRows() != 2 || reader.getBoxCols() != 3) {
+                    throw new IllegalArgumentException("Corpus is not 6x6 with " +
+                                                       "2x3 boxes");
+                }
+                writer.add(intArray, solver.solve(intArray), 0);
+                count++;
+                intArray = reader.next();
+            }
+            writer.close();
+            written = true;
+        }
+        finally {
+            if (written == false) {
+                writer.abandon();
+            }
+        }
+        return count;
+    }
+
+    // command line tool for building and reading stores
+    public static void main(String[] args) {
+        if (args.length >= 2 && args[0].equals("build")) {
+            String[] puzzleFiles = new String[args.length - 2];
+            System.arraycopy(args, 2, puzzleFiles, 0, puzzleFiles.length);
+            build(args[1], puzzleFiles);
+            System.out.println("Wrote " + puzzleFiles.length + " puzzles");
+        }
+        else if (args.length == 3 && args[0].equals("import")) {
+            long count = importCorpus(args[1], args[2]);
+            System.out.println("Wrote " + count + " puzzles");
+        }
+        else if (args.length == 3 && args[0].equals("get")) {
+            PuzzleStore store = new PuzzleStore(args[1]);
+            int[][] intArray = store.readPuzzle(Long.parseLong(args[2]));
+            for (int i = 0; i < SIZE; i++) {
+                for (int j = 0; j < SIZE; j++) {
+                    if (intArray[i][j] == 0) {
+                        System.out.print(' ');
+                    }
+                    else {
+                        System.out.print(intArray[i][j]);
+                    }
+                }
+                System.out.println();
+            }
+        }
+        else if (args.length == 3 && args[0].equals("find")) {
+            PuzzleStore store = new PuzzleStore(args[1]);
+            System.out.println(store.find(SudokuGrid.readInFile(args[2])));
+        }
+        else {
+            System.out.println("Usage: java PuzzleStore build|import|get|find ...");
+        }
+    }
+
+    /**
+    * Inputs: 6x6 int array (int[][])
+    * Outputs: values packed 4 bits per square (byte[])
+    * Description: square k goes in the high half of byte k/2 if k is even and
+                   the low half if k is odd
+    */
+    private static byte[] pack(int[][] intArray) {
+        byte[] packed = new byte[PACKED_BYTES];
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                int k = i * SIZE + j;
+                if (k % 2 == 0) {
+                    packed[k / 2] |= (byte) (intArray[i][j] << 4);
+                }
+                else {
+                    packed[k / 2] |= (byte) intArray[i][j];
+                }
+            }
+        }
+        return packed;
+    }
+
+    /**
+    * Inputs: packed values (byte[])
+    * Outputs: 64-bit FNV-1a hash (long)
+    */
+    private static long hash(byte[] packed) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < packed.length; i++) {
+            hash ^= packed[i] & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    /**
+    * Inputs: open file (FileChannel), offset of the first entry, number of
+              entries, bytes per entry, entries per segment (long, long, int, int)
+    * Outputs: read-only mapped segments (MappedByteBuffer[])
+    */
+    private static MappedByteBuffer[] mapSegments(FileChannel channel, long start,
+                                                  long entries, int entryBytes,
+                                                  int perSegment)
+        throws IOException {
+        int numSegments = (int) ((entries + perSegment - 1) / perSegment);
+        MappedByteBuffer[] segments = new MappedByteBuffer[numSegments];
+        for (int s = 0; s < numSegments; s++) {
+            long first = (long) s * perSegment;
+            long size = Math.min(perSegment, entries - first) * entryBytes;
+            segments[s] = channel.map(FileChannel.MapMode.READ_ONLY,
+                                      start + first * entryBytes, size);
+        }
+        return segments;
+    }
+
+    private MappedByteBuffer segment(long id) {
+        // every read of a record comes through here
+        if (id < 0 || id >= this.count) {
+            throw new IllegalArgumentException("No puzzle with id " + id);
+        }
+        return this.records[(int) (id / RECORDS_PER_SEGMENT)];
+    }
+
+    private int offset(long id) {
+        return (int) (id % RECORDS_PER_SEGMENT) * RECORD_BYTES;
+    }
+
+    private long getSlot(long slot) {
+        return this.index[(int) (slot / SLOTS_PER_SEGMENT)]
+            .getLong((int) (slot % SLOTS_PER_SEGMENT) * 8);
+    }
+
+    private int getPacked(long id, int start, int k) {
+        int b = this.segment(id).get(this.offset(id) + start + k / 2);
+        if (k % 2 == 0) {
+            return (b >> 4) & 0xf;
+        }
+        return b & 0xf;
+    }
+
+    private boolean sameGivens(long id, byte[] packed) {
+        MappedByteBuffer segment = this.segment(id);
+        int offset = this.offset(id);
+        for (int i = 0; i < PACKED_BYTES; i++) {
+            if (segment.get(offset + i) != packed[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Description: writes puzzles to a new store file one record at a time and
+     * builds the hash index when it is closed. Puzzle ids are given out in the
+     * order the puzzles are added, starting at 0.
+     */
+    public static class Writer {
+
+        // fields
+        private String filename;
+        private FileChannel channel;
+        private ByteBuffer buffer;
+        private long count;
+
+        // constructor, creates (or empties) the store file
+        public Writer(String filename) {
+            this.filename = filename;
+            RandomAccessFile file = null;
+            try {
+                file = new RandomAccessFile(filename, "rw");
+                file.setLength(0);
+                this.channel = file.getChannel();
+            }
+            catch (IOException e) {
+                if (file != null) {
+                    try {
+                        file.close();
+                    }
+                    catch (IOException closing) {
+                        e.addSuppressed(closing);
+                    }
+                }
+                throw new IllegalArgumentException("Could not create " +
+                                                   filename, e);
+            }
+            // write records in batches instead of one at a time
+            this.buffer = ByteBuffer.allocateDirect(RECORD_BYTES * 4096);
+            this.count = 0;
+        }
+
+        /**
+        * Inputs: initial values, solution or null, difficulty 0-127
+                  (int[][], int[][], int)
+        * Outputs: id of the new puzzle (long)
+        */
+        public long add(int[][] intArray, int[][] solution, int difficulty) {
+            byte[] givens = pack(intArray);
+            int numGivens = 0;
+            for (int i = 0; i < SIZE; i++) {
+                for (int j = 0; j < SIZE; j++) {
+                    if (intArray[i][j] < 0 || intArray[i][j] > SIZE) {
+                        throw new IllegalArgumentException("Not a number " +
+                                                           "between 1 and 6");
+                    }
+                    if (intArray[i][j] != 0) {
+                        numGivens++;
+                    }
+                }
+            }
+            if (this.buffer.remaining() < RECORD_BYTES) {
+                this.flush();
+            }
+            this.buffer.put(givens);
+            if (solution != null) {
+                this.buffer.put(pack(solution));
+            }
+            else {
+                this.buffer.put(new byte[PACKED_BYTES]);
+            }
+            this.buffer.putLong(hash(givens));
+            this.buffer.put((byte) numGivens);
+            this.buffer.put((byte) difficulty);
+            this.buffer.putShort((short) (solution != null ? FLAG_HAS_SOLUTION : 0));
+            this.count++;
+            return this.count - 1;
+        }
+
+        /**
+        * Inputs: none
+        * Outputs: void
+        * Description: writes the remaining records and the header, then builds
+                       the hash index file
+        */
+        public void close() {
+            try {
+                this.flush();
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).putInt(SIZE).putInt(SIZE);
+                header.putLong(this.count);
+                header.rewind();
+                this.channel.write(header, 0);
+                this.writeIndex();
+                this.channel.close();
+            }
+            catch (IOException e) {
+                throw new IllegalStateException("Could not write " +
+                                                this.filename, e);
+            }
+        }
+
+        /**
+        * Inputs: none
+        * Outputs: void
+        * Description: closes the file without finishing it, after something
+                       went wrong. The header is never written, so the file
+                       cannot be opened as a store.
+        */
+        public void abandon() {
+            try {
+                this.channel.close();
+            }
+            catch (IOException e) {
+                // the file is unusable anyway
+            }
+        }
+
+        private void flush() {
+            try {
+                this.buffer.flip();
+                long position = HEADER_BYTES +
+                    (this.count - this.buffer.remaining() / RECORD_BYTES) *
+                    RECORD_BYTES;
+                while (this.buffer.hasRemaining()) {
+                    position += this.channel.write(this.buffer, position);
+                }
+                this.buffer.clear();
+            }
+            catch (IOException e) {
+                throw new IllegalStateException("Could not write " +
+                                                this.filename, e);
+            }
+        }
+
+        /**
+        * Inputs: none
+        * Outputs: void
+        * Description: fills a hash table with at least twice as many slots as
+                       puzzles (linear probing) and writes it to the index file
+        */
+        private void writeIndex() throws IOException {
+            long slots = 2;
+            while (slots < 2 * this.count) {
+                slots *= 2;
+            }
+            long mask = slots - 1;
+            MappedByteBuffer[] recordSegments = mapSegments(this.channel,
+                HEADER_BYTES, this.count, RECORD_BYTES, RECORDS_PER_SEGMENT);
+
+            File indexFile = new File(this.filename + ".idx");
+            try (RandomAccessFile file = new RandomAccessFile(indexFile, "rw");
+                 FileChannel indexChannel = file.getChannel()) {
+                file.setLength(0);
+                file.setLength(8 + slots * 8);
+                ByteBuffer header = ByteBuffer.allocate(8);
+                header.putLong(0, slots);
+                indexChannel.write(header, 0);
+
+                int numSegments = (int) ((slots + SLOTS_PER_SEGMENT - 1) /
+                                         SLOTS_PER_SEGMENT);
+                MappedByteBuffer[] slotSegments = new MappedByteBuffer[numSegments];
+                for (int s = 0; s < numSegments; s++) {
+                    long first = (long) s * SLOTS_PER_SEGMENT;
+                    long size = Math.min(SLOTS_PER_SEGMENT, slots - first) * 8;
+                    slotSegments[s] = indexChannel.map(
+                        FileChannel.MapMode.READ_WRITE, 8 + first * 8, size);
+                }
+
+                for (long id = 0; id < this.count; id++) {
+                    MappedByteBuffer records =
+                        recordSegments[(int) (id / RECORDS_PER_SEGMENT)];
+                    int offset = (int) (id % RECORDS_PER_SEGMENT) * RECORD_BYTES;
+                    long slot = records.getLong(offset + HASH_OFFSET) & mask;
+                    while (true) {
+                        MappedByteBuffer segment =
+                            slotSegments[(int) (slot / SLOTS_PER_SEGMENT)];
+                        int position = (int) (slot % SLOTS_PER_SEGMENT) * 8;
+                        if (segment.getLong(position) == 0) {
+                            segment.putLong(position, id + 1);
+                            break;
+                        }
+                        slot = (slot + 1) & mask;
+                    }
+                }
+                for (int s = 0; s < numSegments; s++) {
+                    slotSegments[s].force();
+                }
+            }
+        }
+    }
+}
@@ -4,6 +4,11 @@
  * PennKey: sarak24
  *
  * Execution: java SudokuGrid [input sudoku table]
+ *            java SudokuGrid [puzzle store] [puzzle id]
+ * Adding -Dsudoku.log=[file] after java records every move in a MoveLog file,
+ * and -Dsudoku.record=[file] records the input so GameRecording can replay it.
+ * -Dsudoku.rules=[file] plays a variant puzzle with the extra rules in the file
+ * (see readRules()).
  * Command line argument [input sudoku table] should be a text file representing 
  * the initial puzzle where numbers are arranged in a 6x6 formation. Each number
  * will be an integer 1-6 and an empty square is denoted by a whitespace character.
@@ -20,20 +25,112 @@
  *
  */
 
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Line2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
 public class SudokuGrid {
     
     // execute gameplay
     public static void main(String[] args) {
         String inputTable = args[0];
-        drawGrid(inputTable);
+        int[][] intArray;
+        // a puzzle store and puzzle id can be given instead of a single file
+        if (args.length == 2) {
+            PuzzleStore store = new PuzzleStore(inputTable);
+            intArray = store.readPuzzle(Long.parseLong(args[1]));
+            // same checks as a puzzle read from a file
+            checkInitial(intArray);
+        }
+        else {
+            intArray = readInFile(inputTable);
+        }
+        // extra rules for a variant puzzle if a file is given with 
+        // -Dsudoku.rules=[file]
+        String rules = "";
+        if (System.getProperty("sudoku.rules") != null) {
+            rules = new In(System.getProperty("sudoku.rules")).readAll();
+        }
+        drawGrid(intArray, rules);
     }
     
+    // size of the window in pixels
+    public static final int CANVAS_WIDTH = 512;
+    public static final int CANVAS_HEIGHT = 512;
+    
+    // colors of the background
+    private static final Color BACKGROUND_COLOR = new Color(164, 164, 164);
+    private static final Color BOARD_COLOR = new Color(8, 18, 84);
+    private static final Color RESET_COLOR = new Color(255, 0, 0, 150);
+    
+    // cached image of the background and the window size it was drawn for
+    private static String backgroundFile = null;
+    private static int backgroundWidth = 0;
+    private static int backgroundHeight = 0;
+    
+    // source of board versions, shared by every board so no two are the same
+    private static AtomicLong nextVersion = new AtomicLong(1);
+    
+    // the moves label is drawn as the word and then one digit at a time, so
+    // no String is made for it; positions are set by prepareImages()
+    private static final String MOVES_WORD = "Moves:";
+    private static final String[] DIGITS = {"0", "1", "2", "3", "4", "5", "6", 
+                                            "7", "8", "9"};
+    private static double movesWordX = 0;
+    private static double movesDigitX = 0;
+    private static double movesDigitWidth = 0;
+    
+    // most spare copies of each box (and of each array) kept for reuse
+    private static final int SPARES = 4;
+    // spares made by the constructor: with the initial snapshot, a guess and
+    // the board itself there are at most this many copies in use at once
+    private static final int FIRST_SPARES = 2;
+    
     // fields
     private Box[][] grid;
     private int moves;
+    private int[] values;
+    private ConstraintSet constraints;
+    private BoardSnapshot initial;
+    private BoardSnapshot guess;
+    // a guess snapshot RESET dropped, reused by the next saveGuess()
+    private BoardSnapshot spareGuess;
+    // boxes and arrays are only changed in place if they were made for the
+    // current version; anything older may be shared with a snapshot
+    private long version;
+    private long gridVersion;
+    private long valuesVersion;
+    // boxes and arrays that nothing uses any more, reused by the next copies
+    // instead of making new ones. Spare boxes are kept by place in grid, 
+    // SPARES per place.
+    private Box[] spareBoxes;
+    private int[] numSpareBoxes;
+    private Box[][][] spareGrids;
+    private int numSpareGrids;
+    private int[][] spareValues;
+    private int numSpareValues;
+    // true once snapshot() has been called from outside this class; the board
+    // then cannot tell which old boxes are still saved somewhere
+    private boolean snapshotsGiven;
     
     // constructor
     public SudokuGrid(int[][] intArray) {
+        this(intArray, new Constraint[0]);
+    }
+    // method overloading, constructor with extra rules for variant puzzles
+    public SudokuGrid(int[][] intArray, Constraint[] variants) {
+        this.version = nextVersion.getAndIncrement();
         Box box1 = new Box(intArray, 0, 0);
         Box box2 = new Box(intArray, 0, 3);
         Box box3 = new Box(intArray, 2, 0);
@@ -44,9 +141,57 @@ public class SudokuGrid {
         
         this.grid = grid;
         this.moves = 0;
+        this.spareBoxes = new Box[6 * SPARES];
+        this.numSpareBoxes = new int[6];
+        this.spareGrids = new Box[SPARES][][];
+        this.numSpareGrids = 0;
+        this.spareValues = new int[SPARES][];
+        this.numSpareValues = 0;
+        this.snapshotsGiven = false;
+        
+        // values in row order, used to check the rules
+        this.values = new int[36];
+        for (int i = 0; i < 6; i++) {
+            for (int j = 0; j < 6; j++) {
+                this.values[i * 6 + j] = intArray[i][j];
+            }
+        }
+        this.constraints = ConstraintSet.classic();
+        for (int i = 0; i < variants.length; i++) {
+            this.constraints.add(variants[i]);
+        }
+        this.constraints.checkAll(this.values);
+        
+        // saved so RESET does not have to build the board again
+        this.initial = this.takeSnapshot();
+        this.guess = null;
+        this.makeSpares();
+    }
+    
+    /**
+    * Inputs: None
+    * Outputs: void
+    * Description: makes the copies a game needs up front, so even the first
+                   moves and the first guess of a new board reuse spares
+                   instead of making new objects during a frame
+    */
+    private void makeSpares() {
+        for (int k = 0; k < FIRST_SPARES; k++) {
+            for (int i = 0; i < 3; i++) {
+                for (int j = 0; j < 2; j++) {
+                    this.recycleBox(new Box(this.grid[i][j], 0), i, j);
+                }
+            }
+            this.recycleGrid(new Box[3][2]);
+            this.recycleValues(new int[36]);
+            this.constraints.recycle(new boolean[this.constraints.size()]);
+        }
+        this.spareGuess = new BoardSnapshot(this, null, null, null, 0);
     }
     
     // getters
+    // the boxes may be shared with snapshots, so squares are only changed
+    // through setValue()
     public Box[][] getGrid() {
         return this.grid;
     }
@@ -55,6 +200,264 @@ public class SudokuGrid {
         return this.moves;
     }
     
+    public ConstraintSet getConstraints() {
+        return this.constraints;
+    }
+    
+    public int getValue(int row, int col) {
+        return this.values[row * 6 + col];
+    }
+    
+    /**
+    * Inputs: row, column, digit (int)
+    * Outputs: void
+    * Description: sets the value of the square (unless it is an initial value)
+                   and rechecks only the rules that depend on that square
+    */
+    public void setValue(int row, int col, int digit) {
+        if (digit < 0 || digit > 6) {
+            throw new IllegalArgumentException("Not a number between 1 and 6");
+        }
+        int cell = row * 6 + col;
+        BoxValue square = this.grid[row / 2][col / 3].getBox()[row % 2][col % 3];
+        if (square.getIsMutable() == false || square.getValue() == digit) {
+            return;
+        }
+        // copy the box and the values first if a snapshot still uses them
+        square = this.ownBox(row / 2, col / 3).getBox()[row % 2][col % 3];
+        square.setValue(digit);
+        if (this.valuesVersion != this.version) {
+            int[] copy;
+            if (this.numSpareValues > 0) {
+                this.numSpareValues--;
+                copy = this.spareValues[this.numSpareValues];
+                this.spareValues[this.numSpareValues] = null;
+            }
+            else {
+                copy = new int[this.values.length];
+            }
+            System.arraycopy(this.values, 0, copy, 0, this.values.length);
+            this.values = copy;
+            this.valuesVersion = this.version;
+        }
+        this.values[cell] = digit;
+        this.constraints.update(cell, this.values);
+    }
+    
+    /**
+    * Inputs: row and column of the box in grid (int)
+    * Outputs: the box, copied first if it may be shared with a snapshot (Box)
+    */
+    private Box ownBox(int i, int j) {
+        if (this.gridVersion != this.version) {
+            Box[][] copy;
+            if (this.numSpareGrids > 0) {
+                this.numSpareGrids--;
+                copy = this.spareGrids[this.numSpareGrids];
+                this.spareGrids[this.numSpareGrids] = null;
+            }
+            else {
+                copy = new Box[this.grid.length][this.grid[0].length];
+            }
+            for (int r = 0; r < this.grid.length; r++) {
+                System.arraycopy(this.grid[r], 0, copy[r], 0, this.grid[r].length);
+            }
+            this.grid = copy;
+            this.gridVersion = this.version;
+        }
+        if (this.grid[i][j].getOwner() != this.version) {
+            int place = i * 2 + j;
+            if (this.numSpareBoxes[place] > 0) {
+                this.numSpareBoxes[place]--;
+                int k = place * SPARES + this.numSpareBoxes[place];
+                Box spare = this.spareBoxes[k];
+                this.spareBoxes[k] = null;
+                spare.copyFrom(this.grid[i][j], this.version);
+                this.grid[i][j] = spare;
+            }
+            else {
+                this.grid[i][j] = new Box(this.grid[i][j], this.version);
+            }
+        }
+        return this.grid[i][j];
+    }
+    
+    /**
+    * Inputs: None
+    * Outputs: the board as it is now (BoardSnapshot)
+    * Description: saves the board without copying it. Starting a new version
+                   means every box and array in use now counts as shared, so
+                   the next change to any of them makes a copy first.
+    */
+    public BoardSnapshot snapshot() {
+        this.snapshotsGiven = true;
+        return this.takeSnapshot();
+    }
+    
+    // same as snapshot(), for the snapshots this board keeps itself
+    private BoardSnapshot takeSnapshot() {
+        this.version = nextVersion.getAndIncrement();
+        return new BoardSnapshot(this, this.grid, this.values, 
+                                 this.constraints.share(),
+                                 this.constraints.getNumViolated());
+    }
+    
+    // method overloading, saves into a snapshot of this board nothing uses
+    private BoardSnapshot takeSnapshot(BoardSnapshot unused) {
+        this.version = nextVersion.getAndIncrement();
+        unused.save(this.grid, this.values, this.constraints.share(),
+                    this.constraints.getNumViolated());
+        return unused;
+    }
+    
+    /**
+    * Inputs: a snapshot of this board (BoardSnapshot)
+    * Outputs: void
+    * Description: goes back to the saved board (moves are not changed). Boxes
+                   and arrays made since the last snapshot are not in any
+                   snapshot, so they are kept as spares for the next copies.
+                   Throws an exception for a snapshot of another board, or
+                   one taken before rules were added to this board.
+    */
+    public void restore(BoardSnapshot snapshot) {
+        if (snapshot.getBoard() != this) {
+            throw new IllegalArgumentException("Snapshot of another board");
+        }
+        if (snapshot.getGrid().length != this.grid.length ||
+            snapshot.getGrid()[0].length != this.grid[0].length ||
+            snapshot.getValues().length != this.values.length ||
+            snapshot.getViolated().length != this.constraints.size()) {
+            throw new IllegalArgumentException("Snapshot does not match the " +
+                                               "board's size or rules");
+        }
+        Box[][] oldGrid = this.grid;
+        int[] oldValues = this.values;
+        long oldVersion = this.version;
+        boolean gridOwned = this.gridVersion == this.version;
+        boolean valuesOwned = this.valuesVersion == this.version;
+        this.version = nextVersion.getAndIncrement();
+        this.grid = snapshot.getGrid();
+        this.values = snapshot.getValues();
+        this.constraints.restore(snapshot.getViolated(), snapshot.getNumViolated());
+        
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 2; j++) {
+                if (oldGrid[i][j].getOwner() == oldVersion) {
+                    this.recycleBox(oldGrid[i][j], i, j);
+                }
+            }
+        }
+        if (gridOwned) {
+            this.recycleGrid(oldGrid);
+        }
+        if (valuesOwned) {
+            this.recycleValues(oldValues);
+        }
+    }
+    
+    /**
+    * Inputs: boxes and arrays of a board no snapshot or board uses any more
+              (Box[][], int[], boolean[])
+    * Outputs: void
+    * Description: keeps them as spares, skipping any the board or its initial
+                   snapshot still uses (those are never changed in place)
+    */
+    private void recycleBoard(Box[][] oldGrid, int[] oldValues, 
+                              boolean[] oldViolated) {
+        for (int i = 0; i < 3; i++) {
+            for (int j = 0; j < 2; j++) {
+                this.recycleBox(oldGrid[i][j], i, j);
+            }
+        }
+        this.recycleGrid(oldGrid);
+        this.recycleValues(oldValues);
+        if (oldViolated != null && oldViolated != this.initial.getViolated()) {
+            this.constraints.recycle(oldViolated);
+        }
+    }
+    
+    private void recycleBox(Box box, int i, int j) {
+        if (box == this.grid[i][j] || box == this.initial.getGrid()[i][j]) {
+            return;
+        }
+        int place = i * 2 + j;
+        for (int k = 0; k < this.numSpareBoxes[place]; k++) {
+            if (this.spareBoxes[place * SPARES + k] == box) {
+                return;
+            }
+        }
+        if (this.numSpareBoxes[place] < SPARES) {
+            this.spareBoxes[place * SPARES + this.numSpareBoxes[place]] = box;
+            this.numSpareBoxes[place]++;
+        }
+    }
+    
+    private void recycleGrid(Box[][] oldGrid) {
+        if (oldGrid == this.grid || oldGrid == this.initial.getGrid()) {
+            return;
+        }
+        for (int k = 0; k < this.numSpareGrids; k++) {
+            if (this.spareGrids[k] == oldGrid) {
+                return;
+            }
+        }
+        if (this.numSpareGrids < SPARES) {
+            this.spareGrids[this.numSpareGrids] = oldGrid;
+            this.numSpareGrids++;
+        }
+    }
+    
+    private void recycleValues(int[] oldValues) {
+        if (oldValues == this.values || oldValues == this.initial.getValues()) {
+            return;
+        }
+        for (int k = 0; k < this.numSpareValues; k++) {
+            if (this.spareValues[k] == oldValues) {
+                return;
+            }
+        }
+        if (this.numSpareValues < SPARES) {
+            this.spareValues[this.numSpareValues] = oldValues;
+            this.numSpareValues++;
+        }
+    }
+    
+    /**
+    * Inputs: None
+    * Outputs: void
+    * Description: saves the board before trying a guess, into the snapshot
+                   of the last guess (or the spare one), since only this board
+                   ever sees them
+    */
+    public void saveGuess() {
+        BoardSnapshot dropped = this.guess;
+        BoardSnapshot unused = this.spareGuess;
+        this.spareGuess = null;
+        if (dropped == null) {
+            this.guess = this.takeSnapshot(unused);
+            return;
+        }
+        Box[][] oldGrid = dropped.getGrid();
+        int[] oldValues = dropped.getValues();
+        boolean[] oldViolated = dropped.getViolated();
+        this.guess = this.takeSnapshot(dropped);
+        // the old guess is gone, so whatever only it used can be reused
+        if (this.snapshotsGiven == false) {
+            this.recycleBoard(oldGrid, oldValues, oldViolated);
+        }
+    }
+    
+    /**
+    * Inputs: None
+    * Outputs: void
+    * Description: goes back to the board saved by saveGuess(), if there is one
+    */
+    public void undoGuess() {
+        if (this.guess != null) {
+            this.restore(this.guess);
+        }
+    }
+    
     /**
     * Inputs: None
     * Outputs: void
@@ -64,6 +467,145 @@ public class SudokuGrid {
         this.moves++;
     }
     
+    /**
+    * Inputs: None
+    * Outputs: void
+    * Description: sets the board back to the initial input values and the 
+                   moves back to 0, using the snapshot saved by the constructor
+    */
+    public void reset() {
+        BoardSnapshot dropped = this.guess;
+        Box[][] oldGrid = this.grid;
+        int[] oldValues = this.values;
+        this.restore(this.initial);
+        this.moves = 0;
+        this.guess = null;
+        // only the initial snapshot is left, so everything else can be reused
+        if (this.snapshotsGiven == false) {
+            this.recycleBoard(oldGrid, oldValues, null);
+            if (dropped != null) {
+                this.recycleBoard(dropped.getGrid(), dropped.getValues(), 
+                                  dropped.getViolated());
+            }
+        }
+        // the snapshot object itself is kept for the next guess
+        if (dropped != null) {
+            this.spareGuess = dropped;
+        }
+    }
+    
+    /**
+    * Inputs: key typed (char), mouse position (double)
+    * Outputs: square 0-35 that was changed, -1 if nothing happened (int)
+    * Description: if the key is a number 1-6 and the mouse is over the board, 
+                   puts the number in the square under the mouse and counts
+                   the move. 'g' saves the board before a guess and 'u' goes
+                   back to it.
+    */
+    public int typeKey(char c, double mouseX, double mouseY) {
+        // save the board before a guess, or go back to it
+        if (c == 'g') {
+            this.saveGuess();
+            return -1;
+        }
+        if (c == 'u') {
+            this.undoGuess();
+            return -1;
+        }
+        // only if the key is a number 1-6, do the following
+        if (c != '1' && c != '2' && c != '3' && 
+            c != '4' && c != '5' && c != '6') {
+            return -1;
+        }
+        int digit = c - '0';
+        int xPosition = 0;
+        int yPosition = 0;
+        // if mouse is outside the borders of the board, do nothing
+        if (mouseX < 0 || mouseX > 6) {
+            xPosition = -1;
+        }
+        else {
+            xPosition = (int) (mouseX);
+        }
+        // if mouse is outside the borders of the board, do nothing
+        if (mouseY < 0 || mouseY > 6) {
+            yPosition = -1;
+        }
+        else {
+            yPosition = (int) (mouseY);
+        }
+        
+        // update the number under the mouse
+        if (xPosition >= 0 && xPosition < 6 && 
+            yPosition >= 0 && yPosition < 6) {
+            this.setValue(yPosition, xPosition, digit);
+            this.addOneMove();
+            return yPosition * 6 + xPosition;
+        }
+        return -1;
+    }
+    
+    /**
+    * Inputs: mouse position while pressed (double)
+    * Outputs: true if the RESET button was clicked (boolean)
+    * Description: clicking reset will set board to initial input values
+    */
+    public boolean clickMouse(double mouseX, double mouseY) {
+        if (mouseX > 5.6 && mouseX < 6.4 && mouseY > 6.05 && mouseY < 6.45) {
+            this.reset();
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+    * Inputs: where to draw (Canvas)
+    * Outputs: void
+    * Description: draws "Moves: " and the number of moves in the current font.
+                   The word and each digit are constant Strings, so drawing it
+                   every frame makes no new String for any number of moves.
+    */
+    public void drawMovesLabel(Canvas canvas) {
+        if (backgroundFile == null) {
+            prepareImages(CANVAS_WIDTH, CANVAS_HEIGHT);
+        }
+        canvas.text(movesWordX, 6.3, MOVES_WORD);
+        // place value of the first digit
+        int place = 1;
+        while (place <= this.moves / 10) {
+            place *= 10;
+        }
+        double x = movesDigitX;
+        while (place > 0) {
+            canvas.text(x, 6.3, DIGITS[(this.moves / place) % 10]);
+            x += movesDigitWidth;
+            place /= 10;
+        }
+    }
+    
+    /**
+    * Inputs: None
+    * Outputs: void
+    * Description: draws one frame: background, numbers, moves and highlights
+    */
+    public void drawFrame() {
+        this.drawFrame(Canvas.SCREEN);
+    }
+    
+    // method overloading, draws the frame somewhere other than the screen
+    public void drawFrame(Canvas canvas) {
+        drawBackground(canvas);
+        // draw numbers in correct positions
+        this.drawArray(canvas);
+        // keep track of the number of moves
+        canvas.setFontSize(16);
+        canvas.setPenColor(Color.BLACK);
+        this.drawMovesLabel(canvas);
+        
+        // flag rows/columns/boxes (and variant rules) that are broken
+        this.constraints.highlight(canvas);
+    }
+    
     /**
     * Inputs: name of file with initial input table (String)
     * Outputs: 6x6 int array with input table values (int[][])
@@ -121,6 +663,32 @@ public class SudokuGrid {
             }
         }
         
+        checkInitial(intArray);
+        return intArray;
+    }
+    
+    /**
+    * Inputs: 6x6 int array with input table values (int[][])
+    * Outputs: void
+    * Description: throws an exception if the array is not 6x6, holds a number
+                   other than 0-6, or has two of the same number in a row,
+                   column or box. Used for puzzles from files and from stores.
+    */
+    public static void checkInitial(int[][] intArray) {
+        if (intArray.length != 6) {
+            throw new IllegalArgumentException("More than 6 rows");
+        }
+        for (int i = 0; i < 6; i++) {
+            if (intArray[i].length != 6) {
+                throw new IllegalArgumentException("Row length is not 6");
+            }
+            for (int j = 0; j < 6; j++) {
+                if (intArray[i][j] < 0 || intArray[i][j] > 6) {
+                    throw new IllegalArgumentException("Invalid character");
+                }
+            }
+        }
+        
         // No row should have two of the same number
         for (int i = 0; i < 6; i++) {
             for (int j = 0; j < 6; j++) {
@@ -174,8 +742,84 @@ public class SudokuGrid {
                     }
                 }
         }
-       
-        return intArray;
+    }
+    
+    /**
+    * Inputs: name of file with the extra rules of a variant puzzle (String)
+    * Outputs: the rules (Constraint[])
+    * Description: reads one rule per line (blank lines are skipped). A square
+                   is written as its row and column 1-6, so "11" is the top
+                   left square and "16" the top right one.
+                     diagonal                  no repeats top left to bottom right
+                     antidiagonal              no repeats top right to bottom left
+                     cage [sum] [squares...]   killer cage adding up to sum
+                     odd [squares...]          squares with odd numbers
+                     even [squares...]         squares with even numbers
+                     thermo [squares...]       thermometer, bulb first
+    */
+    public static Constraint[] readRules(String rulesFile) {
+        return parseRules(new In(rulesFile).readAll());
+    }
+    
+    /**
+    * Inputs: text of a rules file, one rule per line (String)
+    * Outputs: the rules (Constraint[])
+    * Description: same as readRules(), but from the text of the file. An empty
+                   String gives no rules (a classic puzzle).
+    */
+    public static Constraint[] parseRules(String text) {
+        String[] lines = text.split("\n");
+        ArrayList<Constraint> rules = new ArrayList<Constraint>();
+        for (int i = 0; i < lines.length; i++) {
+            String line = lines[i].trim();
+            if (line.length() == 0) {
+                continue;
+            }
+            String[] parts = line.split("\\s+");
+            String kind = parts[0];
+            if (kind.equals("diagonal") && parts.length == 1) {
+                rules.add(AllDifferent.diagonal(true));
+            }
+            else if (kind.equals("antidiagonal") && parts.length == 1) {
+                rules.add(AllDifferent.diagonal(false));
+            }
+            else if (kind.equals("cage") && parts.length > 2) {
+                rules.add(new KillerCage(readSquares(parts, 2, line), 
+                                         Integer.parseInt(parts[1])));
+            }
+            else if (kind.equals("odd") && parts.length > 1) {
+                rules.add(new ParityConstraint(readSquares(parts, 1, line), true));
+            }
+            else if (kind.equals("even") && parts.length > 1) {
+                rules.add(new ParityConstraint(readSquares(parts, 1, line), false));
+            }
+            else if (kind.equals("thermo") && parts.length > 1) {
+                rules.add(new Thermometer(readSquares(parts, 1, line)));
+            }
+            else {
+                throw new IllegalArgumentException("Invalid rule: " + line);
+            }
+        }
+        return rules.toArray(new Constraint[rules.size()]);
+    }
+    
+    /**
+    * Inputs: words of a rule (String[]), index of the first square (int), the
+              whole rule for error messages (String)
+    * Outputs: squares numbered 0-35 in row order (int[])
+    */
+    private static int[] readSquares(String[] parts, int start, String line) {
+        int[] cells = new int[parts.length - start];
+        for (int k = 0; k < cells.length; k++) {
+            String square = parts[start + k];
+            if (square.length() != 2 || square.charAt(0) < '1' || 
+                square.charAt(0) > '6' || square.charAt(1) < '1' || 
+                square.charAt(1) > '6') {
+                throw new IllegalArgumentException("Invalid square in rule: " + line);
+            }
+            cells[k] = (square.charAt(0) - '1') * 6 + (square.charAt(1) - '1');
+        }
+        return cells;
     }
     
     
@@ -183,14 +827,50 @@ public class SudokuGrid {
     * Inputs: name of file with initial input table (String)
     * Outputs: void
     * Description: calls readInFile() on the file with the initial input table and
-                   creates a SudokuGrid object from the 2D int array. Draws the 
-                   sudoku puzzle and animates the gameplay.
+                   plays the puzzle
     */
     public static void drawGrid(String inputTable) {
+        drawGrid(readInFile(inputTable));
+    }
+    
+    /**
+    * Inputs: 6x6 int array with initial input table values (int[][])
+    * Outputs: void
+    * Description: creates a SudokuGrid object from the 2D int array. Draws the 
+                   sudoku puzzle and animates the gameplay.
+    */
+    public static void drawGrid(int[][] sudokuGridIntArray) {
+        drawGrid(sudokuGridIntArray, "");
+    }
+    
+    /**
+    * Inputs: 6x6 int array with initial input table values (int[][]), extra
+              rules for a variant puzzle in the format of readRules() (String)
+    * Outputs: void
+    * Description: same as above, but the variant rules are also checked and
+                   highlighted (and recorded with the game, if it is recorded)
+    */
+    public static void drawGrid(int[][] sudokuGridIntArray, String rules) {
+        Constraint[] variants = parseRules(rules);
+        PennDraw.setCanvasSize(CANVAS_WIDTH, CANVAS_HEIGHT);
         PennDraw.enableAnimation(30);
-        int[][] sudokuGridIntArray = readInFile(inputTable);
+        // draw the background and digits once for this window size
+        prepareImages(CANVAS_WIDTH, CANVAS_HEIGHT);
         
-        SudokuGrid gameBoard = new SudokuGrid(sudokuGridIntArray);
+        SudokuGrid gameBoard = new SudokuGrid(sudokuGridIntArray, variants);
+        
+        // record every move if a log file is given with -Dsudoku.log=[file]
+        MoveLog log = null;
+        if (System.getProperty("sudoku.log") != null) {
+            log = new MoveLog(System.getProperty("sudoku.log"));
+        }
+        // record the input so the game can be replayed exactly if a file is 
+        // given with -Dsudoku.record=[file]
+        GameRecording recording = null;
+        if (System.getProperty("sudoku.record") != null) {
+            recording = new GameRecording(System.getProperty("sudoku.record"),
+                                          sudokuGridIntArray, rules);
+        }
         
         // set scales to align with int array indices
         PennDraw.setXscale(-.5, 6.5);
@@ -199,244 +879,66 @@ public class SudokuGrid {
         
         
         while (gameBoard.isSolved() == false) {
-            drawBackground();
-            // draw numbers in correct positions
-            gameBoard.drawArray();
-            // keep track of the number of moves
-            PennDraw.setFontSize(16);
-            PennDraw.setPenColor(PennDraw.BLACK);
-            PennDraw.text(0.2, 6.3, "Moves: " + gameBoard.getMoves());
-            
-            // check for and flag boxes with repeat numbers
-            for (int i = 0; i < 3; i++) {
-                for (int j = 0; j < 2; j++) {
-                    if (gameBoard.getGrid()[i][j].checkBox()) {
-                        gameBoard.getGrid()[i][j].colorBox(j * 3, i * 2);
-                    }
-                }
-            }
-            
-            // check for and flag rows with repeat numbers
-            for (int i = 0; i < 3; i++) {
-                if (gameBoard.checkRow1(i)) {
-                    gameBoard.colorRow(i * 2);
-                }
-                if (gameBoard.checkRow2(i)) {
-                    gameBoard.colorRow(i * 2 + 1);
-                }
-            }
-            
-            // check for and flag columns with repeat numbers
-            for (int i = 0; i < 2; i++) {
-                if (gameBoard.checkCol1(i)) {
-                    gameBoard.colorCol(i * 3);
-                }
-                if (gameBoard.checkCol2(i)) {
-                    gameBoard.colorCol(i * 3 + 1);
-                } 
-                if (gameBoard.checkCol3(i)) {
-                    gameBoard.colorCol(i * 3 + 2);
-                }
-            }
+            long drawStart = System.nanoTime();
+            gameBoard.drawFrame();
+            long drawNanos = System.nanoTime() - drawStart;
             
+            // only the calls GameRecording.replay() makes are timed, not 
+            // reading the mouse and keys or writing the log
+            long updateNanos = 0;
+            double mouseX = PennDraw.mouseX();
+            double mouseY = PennDraw.mouseY();
             // check if user has typed a key
-            if (PennDraw.hasNextKeyTyped()) {
-                String s = "";
-                char c = PennDraw.nextKeyTyped();
-                s += c;
-                // only if the key is a number 1-6, do the following
-                if (c == '1' || c == '2' || c == '3' || 
-                    c == '4' || c == '5' || c == '6') {
-                    int digit = Integer.parseInt(s);
-                    int xPosition = 0;
-                    int yPosition = 0;
-                    // if mouse is outside the borders of the board, do nothing
-                    if (PennDraw.mouseX() < 0 || PennDraw.mouseX() > 6) {
-                        xPosition = -1;
-                    }
-                    else {
-                        xPosition = (int) (PennDraw.mouseX());
-                    }
-                    // if mouse is outside the borders of the board, do nothing
-                    if (PennDraw.mouseY() < 0 || PennDraw.mouseY() > 6) {
-                        yPosition = -1;
-                    }
-                    else {
-                        yPosition = (int) (PennDraw.mouseY());
-                    }
-                    
-                    // Box object used to update number depending on mouse position
-                    Box findMouse = new Box();
-                    
-                    // row 1, column 1
-                    if (xPosition >= 0 && xPosition < 3 && 
-                        yPosition >= 0 && yPosition < 2) {
-                        findMouse = gameBoard.getGrid()[0][0];
-                        if (xPosition == 0 && yPosition == 0) {
-                            findMouse.getBox()[0][0].setValue(digit);
-                        }
-                        else if (xPosition == 1 && yPosition == 0) {
-                            findMouse.getBox()[0][1].setValue(digit);
-                        }
-                        else if (xPosition == 2 && yPosition == 0) {
-                            findMouse.getBox()[0][2].setValue(digit);
-                        }
-                        else if (xPosition == 0 && yPosition == 1) {
-                            findMouse.getBox()[1][0].setValue(digit);
-                        }
-                        else if (xPosition == 1 && yPosition == 1) {
-                            findMouse.getBox()[1][1].setValue(digit);
-                        }
-                        else {
-                            findMouse.getBox()[1][2].setValue(digit);
-                        }
-                        gameBoard.addOneMove();
-                    }
-                    // row 1, column 2
-                    else if (xPosition >= 3 && xPosition < 6 && 
-                        yPosition >= 0 && yPosition < 2) {
-                        findMouse = gameBoard.getGrid()[0][1];
-                        if (xPosition == 3 && yPosition == 0) {
-                            findMouse.getBox()[0][0].setValue(digit);
-                        }
-                        else if (xPosition == 4 && yPosition == 0) {
-                            findMouse.getBox()[0][1].setValue(digit);
-                        }
-                        else if (xPosition == 5 && yPosition == 0) {
-                            findMouse.getBox()[0][2].setValue(digit);
-                        }
-                        else if (xPosition == 3 && yPosition == 1) {
-                            findMouse.getBox()[1][0].setValue(digit);
-                        }
-                        else if (xPosition == 4 && yPosition == 1) {
-                            findMouse.getBox()[1][1].setValue(digit);
-                        }
-                        else {
-                            findMouse.getBox()[1][2].setValue(digit);
-                        }
-                        gameBoard.addOneMove();
-                    }
-                    // row 2, column 1
-                    else if (xPosition >= 0 && xPosition < 3 && 
-                        yPosition >= 2 && yPosition < 4) {
-                        findMouse = gameBoard.getGrid()[1][0];
-                        if (xPosition == 0 && yPosition == 2) {
-                            findMouse.getBox()[0][0].setValue(digit);
-                        }
-                        else if (xPosition == 1 && yPosition == 2) {
-                            findMouse.getBox()[0][1].setValue(digit);
-                        }
-                        else if (xPosition == 2 && yPosition == 2) {
-                            findMouse.getBox()[0][2].setValue(digit);
-                        }
-                        else if (xPosition == 0 && yPosition == 3) {
-                            findMouse.getBox()[1][0].setValue(digit);
-                        }
-                        else if (xPosition == 1 && yPosition == 3) {
-                            findMouse.getBox()[1][1].setValue(digit);
-                        }
-                        else {
-                            findMouse.getBox()[1][2].setValue(digit);
-                        }
-                        gameBoard.addOneMove();
-                    }
-                    // row 2, column 2
-                    else if (xPosition >= 3 && xPosition < 6 && 
-                        yPosition >= 2 && yPosition < 4) {
-                        findMouse = gameBoard.getGrid()[1][1];
-                        if (xPosition == 3 && yPosition == 2) {
-                            findMouse.getBox()[0][0].setValue(digit);
-                        }
-                        else if (xPosition == 4 && yPosition == 2) {
-                            findMouse.getBox()[0][1].setValue(digit);
-                        }
-                        else if (xPosition == 5 && yPosition == 2) {
-                            findMouse.getBox()[0][2].setValue(digit);
-                        }
-                        else if (xPosition == 3 && yPosition == 3) {
-                            findMouse.getBox()[1][0].setValue(digit);
-                        }
-                        else if (xPosition == 4 && yPosition == 3) {
-                            findMouse.getBox()[1][1].setValue(digit);
-                        }
-                        else {
-                            findMouse.getBox()[1][2].setValue(digit);
-                        }
-                        gameBoard.addOneMove();
-                    }
-                    // row 3, column 1
-                    else if (xPosition >= 0 && xPosition < 3 && 
-                        yPosition >= 4 && yPosition < 6) {
-                        findMouse = gameBoard.getGrid()[2][0];
-                        if (xPosition == 0 && yPosition == 4) {
-                            findMouse.getBox()[0][0].setValue(digit);
-                        }
-                        else if (xPosition == 1 && yPosition == 4) {
-                            findMouse.getBox()[0][1].setValue(digit);
-                        }
-                        else if (xPosition == 2 && yPosition == 4) {
-                            findMouse.getBox()[0][2].setValue(digit);
-                        }
-                        else if (xPosition == 0 && yPosition == 5) {
-                            findMouse.getBox()[1][0].setValue(digit);
-                        }
-                        else if (xPosition == 1 && yPosition == 5) {
-                            findMouse.getBox()[1][1].setValue(digit);
-                        }
-                        else {
-                            findMouse.getBox()[1][2].setValue(digit);
-                        }
-                        gameBoard.addOneMove();
-                    }
-                    // row 3, column 2
-                    else if (xPosition >= 3 && xPosition < 6 && 
-                        yPosition >= 4 && yPosition < 6) {
-                        findMouse = gameBoard.getGrid()[2][1];
-                        if (xPosition == 3 && yPosition == 4) {
-                            findMouse.getBox()[0][0].setValue(digit);
-                        }
-                        else if (xPosition == 4 && yPosition == 4) {
-                            findMouse.getBox()[0][1].setValue(digit);
-                        }
-                        else if (xPosition == 5 && yPosition == 4) {
-                            findMouse.getBox()[0][2].setValue(digit);
-                        }
-                        else if (xPosition == 3 && yPosition == 5) {
-                            findMouse.getBox()[1][0].setValue(digit);
-                        }
-                        else if (xPosition == 4 && yPosition == 5) {
-                            findMouse.getBox()[1][1].setValue(digit);
-                        }
-                        else {
-                            findMouse.getBox()[1][2].setValue(digit);
-                        }
-                        gameBoard.addOneMove();
-                    }
-                    // mouse is not within border of the grid
-                    else {
-                        continue;
-                    }
+            boolean keyTyped = PennDraw.hasNextKeyTyped();
+            char c = ' ';
+            if (keyTyped) {
+                c = PennDraw.nextKeyTyped();
+                long keyStart = System.nanoTime();
+                int cell = gameBoard.typeKey(c, mouseX, mouseY);
+                updateNanos += System.nanoTime() - keyStart;
+                if (cell != -1 && log != null) {
+                    log.recordMove(cell, c - '0', 
+                                   gameBoard.getConstraints().isCellViolated(cell));
                 }
             }
             // Clicking reset will set board to initial input values
-            if (PennDraw.mousePressed() && PennDraw.mouseX() > 5.6 && 
-               PennDraw.mouseX() < 6.4 && PennDraw.mouseY() > 6.05 &&
-               PennDraw.mouseY() < 6.45) {
-                SudokuGrid initialBoard = new SudokuGrid(sudokuGridIntArray);
-                gameBoard = initialBoard;
+            boolean mousePressed = PennDraw.mousePressed();
+            if (mousePressed) {
+                long clickStart = System.nanoTime();
+                boolean reset = gameBoard.clickMouse(mouseX, mouseY);
+                updateNanos += System.nanoTime() - clickStart;
+                if (reset && log != null) {
+                    log.recordReset();
+                }
+            }
+            if (recording != null) {
+                // the result is not needed (the loop checks again), but the
+                // replay calls isSolved() after every frame, so it is timed
+                // here too to keep the recorded and replayed times the same
+                long solvedStart = System.nanoTime();
+                gameBoard.isSolved();
+                updateNanos += System.nanoTime() - solvedStart;
+                recording.recordFrame(gameBoard, keyTyped, c, mousePressed, 
+                                      mouseX, mouseY, updateNanos, drawNanos);
             }
             
             PennDraw.advance();    
         }
         
         PennDraw.disableAnimation();
+        if (log != null) {
+            log.recordSolved();
+        }
+        if (recording != null) {
+            recording.close();
+        }
         
         // final frame
         drawBackground();
         gameBoard.drawArray();
         PennDraw.setFontSize(16);
         PennDraw.setPenColor(PennDraw.BLACK);
-        PennDraw.text(0.2, 6.3, "Moves: " + gameBoard.getMoves());
+        gameBoard.drawMovesLabel(Canvas.SCREEN);
         printWinningMessage();
         PennDraw.text(3, 3, "Total moves: " + gameBoard.getMoves());
         
@@ -445,43 +947,150 @@ public class SudokuGrid {
     /**
     * Inputs: None
     * Outputs: void
-    * Description: draws background
+    * Description: draws background by copying the cached image of the board
+                   (grid lines, bold box borders, fill and RESET button) onto the
+                   canvas
     */
     public static void drawBackground() {
+        drawBackground(Canvas.SCREEN);
+    }
+    
+    // method overloading, draws the background somewhere other than the screen
+    public static void drawBackground(Canvas canvas) {
+        if (backgroundFile == null) {
+            prepareImages(CANVAS_WIDTH, CANVAS_HEIGHT);
+        }
+        canvas.picture(3, 3, backgroundFile, 7, 7);
+    }
+    
+    /**
+    * Inputs: width and height of the window in pixels (int)
+    * Outputs: void
+    * Description: renders the background and the digit images for a window of
+                   this size, unless they were already rendered for it, and
+                   places the moves label. Called by drawGrid() before the
+                   first frame, so no frame has to.
+    */
+    public static void prepareImages(int width, int height) {
+        if (backgroundFile == null || backgroundWidth != width ||
+            backgroundHeight != height) {
+            placeMovesLabel(width);
+            backgroundFile = renderBackground(width, height);
+            backgroundWidth = width;
+            backgroundHeight = height;
+        }
+        BoxValue.prepareDigits(width, height);
+    }
+    
+    /**
+    * Inputs: width of the window in pixels (int)
+    * Outputs: void
+    * Description: measures the label in PennDraw's font (SansSerif, size 16)
+                   so that the word and digits drawn one at a time line up
+                   like one String "Moves: 0" centered at x = 0.2. Digits in
+                   this font all have the same width.
+    */
+    private static void placeMovesLabel(int width) {
+        BufferedImage image = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        FontMetrics metrics = g.getFontMetrics(new Font("SansSerif", Font.PLAIN, 16));
+        // one board unit in pixels (the scale runs from -0.5 to 6.5)
+        double unitX = width / 7.0;
+        double left = 0.2 - metrics.stringWidth(MOVES_WORD + " 0") / 2.0 / unitX;
+        movesDigitWidth = metrics.stringWidth("0") / unitX;
+        movesWordX = left + metrics.stringWidth(MOVES_WORD) / 2.0 / unitX;
+        movesDigitX = left + metrics.stringWidth(MOVES_WORD + " ") / unitX +
+                      movesDigitWidth / 2;
+        g.dispose();
+    }
+    
+    /**
+    * Inputs: width and height of the window in pixels (int)
+    * Outputs: name of the image file holding the background (String)
+    * Description: draws the background once into an offscreen image the size of
+                   the window and saves it to a temporary file, since PennDraw
+                   only draws pictures from a file. Uses the same colors and 
+                   line widths as drawing it with PennDraw (pen radius is scaled
+                   by the window width).
+    */
+    private static String renderBackground(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, 
+                                                BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, 
+                           RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, 
+                           RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        // one board unit in pixels (the scale runs from -0.5 to 6.5)
+        double unitX = width / 7.0;
+        double unitY = height / 7.0;
         // grey background
-        PennDraw.setPenColor(164, 164, 164);
-        PennDraw.filledRectangle(3, 3, 3.5, 3.5);
+        g.setColor(BACKGROUND_COLOR);
+        g.fillRect(0, 0, width, height);
         // navy-colored board
-        PennDraw.setPenColor(8, 18, 84);
-        PennDraw.filledRectangle(3, 3, 3, 3);
+        g.setColor(BOARD_COLOR);
+        g.fill(new Rectangle2D.Double(0.5 * unitX, 0.5 * unitY, 
+                                      6 * unitX, 6 * unitY));
         // white lines
-        PennDraw.setPenColor(PennDraw.WHITE);
+        g.setColor(Color.WHITE);
+        BasicStroke bold = new BasicStroke((float) (.025 * width), 
+                                           BasicStroke.CAP_ROUND, 
+                                           BasicStroke.JOIN_ROUND);
+        BasicStroke thin = new BasicStroke((float) (.01 * width), 
+                                           BasicStroke.CAP_ROUND, 
+                                           BasicStroke.JOIN_ROUND);
         for (int i = 0; i <= 6; i++) {
             // bold lines outlining boxes
             if (i == 0 || i == 3 || i == 6) {
-                PennDraw.setPenRadius(.025);
+                g.setStroke(bold);
             }
             else {
-                PennDraw.setPenRadius(.01);
+                g.setStroke(thin);
             }
-            PennDraw.line(i, 0, i, 6);
+            g.draw(new Line2D.Double((i + 0.5) * unitX, 0.5 * unitY, 
+                                     (i + 0.5) * unitX, 6.5 * unitY));
         }
         for (int j = 0; j <= 6; j++) {
             // bold lines outlining boxes
             if (j == 0 || j == 2 || j == 4 || j == 6) {
-                PennDraw.setPenRadius(.025);
+                g.setStroke(bold);
             }
             else {
-                PennDraw.setPenRadius(.01);
+                g.setStroke(thin);
             }
-            PennDraw.line(0, j, 6, j);
+            g.draw(new Line2D.Double(0.5 * unitX, (j + 0.5) * unitY, 
+                                     6.5 * unitX, (j + 0.5) * unitY));
         }
         // Reset button
-        PennDraw.setPenColor(255, 0, 0, 150);
-        PennDraw.filledRectangle(6, 6.3, .4, .15);
-        PennDraw.setPenColor(PennDraw.BLACK);
-        PennDraw.setFontSize(14);
-        PennDraw.text(6, 6.3, "RESET");
+        g.setColor(RESET_COLOR);
+        g.fill(new Rectangle2D.Double(6.1 * unitX, 6.65 * unitY, 
+                                      0.8 * unitX, 0.3 * unitY));
+        g.setColor(Color.BLACK);
+        g.setFont(new Font("SansSerif", Font.PLAIN, 14));
+        FontMetrics metrics = g.getFontMetrics();
+        g.drawString("RESET", 
+                     (float) (6.5 * unitX - metrics.stringWidth("RESET") / 2.0),
+                     (float) (6.8 * unitY + metrics.getDescent()));
+        g.dispose();
+        return saveImage(image, "sudoku-background");
+    }
+    
+    /**
+    * Inputs: image to save (BufferedImage), prefix of the file name (String)
+    * Outputs: name of the temporary file (String)
+    * Description: writes the image to a png file that is deleted on exit
+    * NOTE: also used by BoxValue to save its digit images
+    */
+    public static String saveImage(BufferedImage image, String prefix) {
+        try {
+            File file = File.createTempFile(prefix, ".png");
+            file.deleteOnExit();
+            ImageIO.write(image, "png", file);
+            return file.getAbsolutePath();
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Could not save image " + prefix, e);
+        }
     }
     
     /**
@@ -493,9 +1102,14 @@ public class SudokuGrid {
     * NOTE: calls .drawArray() on each Box object in grid array
     */
     public void drawArray() {
+        this.drawArray(Canvas.SCREEN);
+    }
+    
+    // method overloading, draws the numbers somewhere other than the screen
+    public void drawArray(Canvas canvas) {
         for (int i = 0; i < 3; i++) {
             for (int j = 0; j < 2; j++) {
-                this.getGrid()[i][j].drawArray(j * 3 + 0.5, i * 2 + 0.5);
+                this.grid[i][j].drawArray(canvas, j * 3 + 0.5, i * 2 + 0.5);
             }
         }
     }
@@ -503,26 +1117,19 @@ public class SudokuGrid {
     /**
     * Inputs: row (int)
     * Outputs: true/false (boolean)
-    * Description: creates an int array of the values in one row of the grid and
-                   returns true if the row contains 2 of the same number
+    * Description: goes through the values in one row of the grid and returns
+                   true if the row contains 2 of the same number
     * NOTE: used to check rows 1, 3, and 5               
     */
     public boolean checkRow1(int row) {
-        int[] row1 = new int[6];
-        for (int i = 0; i < 3; i++) {
-            Box box = this.getGrid()[row][0];
-            row1[i] = box.getBox()[0][i].getValue();
-        }
-        for (int i = 3; i < 6; i++) {
-            Box box = this.getGrid()[row][1];
-            row1[i] = box.getBox()[0][i - 3].getValue();
-        }
+        // bit d of seen is set once digit d is found
+        int seen = 0;
         for (int i = 0; i < 6; i++) {
-            for (int j = i + 1; j < 6; j++) {
-                if (row1[i] == row1[j] && row1[i] != 0) {
-                    return true;
-                }
+            int digit = this.grid[row][i / 3].getBox()[0][i % 3].getValue();
+            if (digit != 0 && (seen & (1 << digit)) != 0) {
+                return true;
             }
+            seen |= 1 << digit;
         }
         return false;
     }
@@ -530,26 +1137,19 @@ public class SudokuGrid {
     /**
     * Inputs: row (int)
     * Outputs: true/false (boolean)
-    * Description: creates an int array of the values in one row of the grid and
-                   returns true if the row contains 2 of the same number
+    * Description: goes through the values in one row of the grid and returns
+                   true if the row contains 2 of the same number
     * NOTE: used to check rows 2, 4, and 6               
     */
     public boolean checkRow2(int row) {
-        int[] row2 = new int[6];
-        for (int i = 0; i < 3; i++) {
-            Box box = this.getGrid()[row][0];
-            row2[i] = box.getBox()[1][i].getValue();
-        }
-        for (int i = 3; i < 6; i++) {
-            Box box = this.getGrid()[row][1];
-            row2[i] = box.getBox()[1][i - 3].getValue();
-        }
+        // bit d of seen is set once digit d is found
+        int seen = 0;
         for (int i = 0; i < 6; i++) {
-            for (int j = i + 1; j < 6; j++) {
-                if (row2[i] == row2[j] && row2[i] != 0) {
-                    return true;
-                }
+            int digit = this.grid[row][i / 3].getBox()[1][i % 3].getValue();
+            if (digit != 0 && (seen & (1 << digit)) != 0) {
+                return true;
             }
+            seen |= 1 << digit;
         }
         return false;
     }
@@ -560,37 +1160,26 @@ public class SudokuGrid {
     * Description: highlights the problem row pink             
     */
     public void colorRow(int row) {
-        PennDraw.setPenColor(252, 95, 235, 100);
+        PennDraw.setPenColor(AllDifferent.ROW_COLOR);
         PennDraw.filledRectangle(3, row + 0.5, 3, 0.5);
     }
     
     /**
     * Inputs: column (int)
     * Outputs: true/false (boolean)
-    * Description: creates an int array of the values in one column of the grid and
-                   returns true if the column contains 2 of the same number
+    * Description: goes through the values in one column of the grid and returns
+                   true if the column contains 2 of the same number
     * NOTE: used to check columns 1 and 3              
     */
     public boolean checkCol1(int col) {
-        int[] col1 = new int[6];
-        for (int i = 0; i < 2; i++) {
-            Box box = this.getGrid()[0][col];
-            col1[i] = box.getBox()[i][0].getValue();
-        }
-        for (int i = 2; i < 4; i++) {
-            Box box = this.getGrid()[1][col];
-            col1[i] = box.getBox()[i - 2][0].getValue();
-        }
-        for (int i = 4; i < 6; i++) {
-            Box box = this.getGrid()[2][col];
-            col1[i] = box.getBox()[i - 4][0].getValue();
-        }
+        // bit d of seen is set once digit d is found
+        int seen = 0;
         for (int i = 0; i < 6; i++) {
-            for (int j = i + 1; j < 6; j++) {
-                if (col1[i] == col1[j] && col1[i] != 0) {
-                    return true;
-                }
+            int digit = this.grid[i / 2][col].getBox()[i % 2][0].getValue();
+            if (digit != 0 && (seen & (1 << digit)) != 0) {
+                return true;
             }
+            seen |= 1 << digit;
         }
         return false;
     }
@@ -598,30 +1187,19 @@ public class SudokuGrid {
     /**
     * Inputs: column (int)
     * Outputs: true/false (boolean)
-    * Description: creates an int array of the values in one column of the grid and
-                   returns true if the column contains 2 of the same number
+    * Description: goes through the values in one column of the grid and returns
+                   true if the column contains 2 of the same number
     * NOTE: used to check columns 2 and 4               
     */
     public boolean checkCol2(int col) {
-        int[] col2 = new int[6];
-        for (int i = 0; i < 2; i++) {
-            Box box = this.getGrid()[0][col];
-            col2[i] = box.getBox()[i][1].getValue();
-        }
-        for (int i = 2; i < 4; i++) {
-            Box box = this.getGrid()[1][col];
-            col2[i] = box.getBox()[i - 2][1].getValue();
-        }
-        for (int i = 4; i < 6; i++) {
-            Box box = this.getGrid()[2][col];
-            col2[i] = box.getBox()[i - 4][1].getValue();
-        }
+        // bit d of seen is set once digit d is found
+        int seen = 0;
         for (int i = 0; i < 6; i++) {
-            for (int j = i + 1; j < 6; j++) {
-                if (col2[i] == col2[j] && col2[i] != 0) {
-                    return true;
-                }
+            int digit = this.grid[i / 2][col].getBox()[i % 2][1].getValue();
+            if (digit != 0 && (seen & (1 << digit)) != 0) {
+                return true;
             }
+            seen |= 1 << digit;
         }
         return false;
     }
@@ -629,30 +1207,19 @@ public class SudokuGrid {
     /**
     * Inputs: column (int)
     * Outputs: true/false (boolean)
-    * Description: creates an int array of the values in one column of the grid and
-                   returns true if the column contains 2 of the same number
+    * Description: goes through the values in one column of the grid and returns
+                   true if the column contains 2 of the same number
     * NOTE: used to check columns 3 and 6               
     */
     public boolean checkCol3(int col) {
-        int[] col3 = new int[6];
-        for (int i = 0; i < 2; i++) {
-            Box box = this.getGrid()[0][col];
-            col3[i] = box.getBox()[i][2].getValue();
-        }
-        for (int i = 2; i < 4; i++) {
-            Box box = this.getGrid()[1][col];
-            col3[i] = box.getBox()[i - 2][2].getValue();
-        }
-        for (int i = 4; i < 6; i++) {
-            Box box = this.getGrid()[2][col];
-            col3[i] = box.getBox()[i - 4][2].getValue();
-        }
+        // bit d of seen is set once digit d is found
+        int seen = 0;
         for (int i = 0; i < 6; i++) {
-            for (int j = i + 1; j < 6; j++) {
-                if (col3[i] == col3[j] && col3[i] != 0) {
-                    return true;
-                }
+            int digit = this.grid[i / 2][col].getBox()[i % 2][2].getValue();
+            if (digit != 0 && (seen & (1 << digit)) != 0) {
+                return true;
             }
+            seen |= 1 << digit;
         }
         return false;
     }
@@ -663,49 +1230,26 @@ public class SudokuGrid {
     * Description: highlights the problem column yellow             
     */
     public void colorCol(int col) {
-        PennDraw.setPenColor(255, 217, 87, 100);
+        PennDraw.setPenColor(AllDifferent.COLUMN_COLOR);
         PennDraw.filledRectangle(col + 0.5, 3, 0.5, 3);
     }
     
     /**
     * Inputs: none
     * Outputs: true/false (boolean)
-    * Description: returns true if the puzzle is solved (no repeat numbers in any
-                   row/column/box and all squares filled in)             
+    * Description: returns true if the puzzle is solved (no broken rules, so no
+                   repeat numbers in any row/column/box, and all squares filled in)
     */
     public boolean isSolved() {
         boolean filledIn = true;
-        boolean columns = true;
-        boolean rows = true;
         for (int i = 0; i < 3; i++) {
             for (int j = 0; j < 2; j++) {
-                if (this.getGrid()[i][j].hasZero()) {
+                if (this.grid[i][j].hasZero()) {
                     filledIn = false;
                 }
             }
         }
-        
-        for (int i = 0; i < 3; i++) {
-            if (this.checkRow1(i)) {
-                rows = false;
-            }
-            if (this.checkRow2(i)) {
-                rows = false;
-            }
-        }
-        
-        for (int i = 0; i < 2; i++) {
-            if (this.checkCol1(i)) {
-                columns = false;
-            }
-            if (this.checkCol2(i)) {
-                columns = false;
-            } 
-            if (this.checkCol3(i)) {
-                columns = false;
-            }
-        }
-        return filledIn && columns && rows;
+        return filledIn && this.constraints.getNumViolated() == 0;
     }
     
     /**
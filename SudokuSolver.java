@@ -0,0 +1,516 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Execution: java SudokuSolver [input sudoku tables...]
+ * Each command line argument is a puzzle file in the same format SudokuGrid
+ * reads. Every puzzle is solved in portfolio mode and the program prints which
+ * strategy finished first for each puzzle and how often each strategy won.
+ * Adding -Dsudoku.rules=[file] after java solves them as variant puzzles with
+ * the rules in the file (see SudokuGrid.readRules()).
+ *
+ * Description: a class that solves a 6x6 sudoku puzzle by backtracking. How the
+ * search runs depends on its settings: which empty square is filled next (the
+ * next one in row order, or the one with the fewest possible digits), the order
+ * digits are tried in (ascending, descending, or random), whether squares with
+ * only one possible digit are filled in right away (propagation), and whether
+ * the search starts over with a new random order after a number of steps
+ * (restarts, the limit doubles each time).
+ *
+ * Different puzzles are fastest with different settings, so portfolio() runs
+ * several solvers on the same puzzle at the same time, one per thread. The first
+ * one to finish wins and tells the others to stop; each solver checks a shared
+ * flag as it searches and gives up when it is set.
+ *
+ * Variant puzzles (see Constraint) are solved by passing their extra rules to
+ * setVariants(); classic puzzles skip that check entirely.
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class SudokuSolver {
+
+    public static final int SIZE = 6;
+
+    // which square to fill next
+    public static final int ROW_ORDER = 0;
+    public static final int FEWEST_CHOICES = 1;
+
+    // which order to try the digits in
+    public static final int ASCENDING = 0;
+    public static final int DESCENDING = 1;
+    public static final int RANDOM = 2;
+
+    // results of one search
+    private static final int SOLVED = 0;
+    private static final int NO_SOLUTION = 1;
+    private static final int OUT_OF_STEPS = 2;
+    private static final int CANCELLED = 3;
+
+    // fields (settings)
+    private String name;
+    private int cellOrder;
+    private int valueOrder;
+    private boolean propagate;
+    private long restartLimit;
+    private Random random;
+    private ConstraintSet variants;
+
+    // fields (search state)
+    private int[] grid;
+    private int[] rowUsed;
+    private int[] colUsed;
+    private int[] boxUsed;
+    private int[] trail;
+    private int trailSize;
+    private long nodes;
+    private long limit;
+    private int restarts;
+    // flag the running search checks, set by cancel(). Each solve() gets a
+    // new one; in a race it is the flag shared by every solver.
+    private volatile AtomicBoolean stop;
+
+    // constructor, restartLimit of 0 means never restart
+    public SudokuSolver(String name, int cellOrder, int valueOrder,
+                        boolean propagate, long restartLimit, long seed) {
+        this.name = name;
+        this.cellOrder = cellOrder;
+        this.valueOrder = valueOrder;
+        this.propagate = propagate;
+        this.restartLimit = restartLimit;
+        this.random = new Random(seed);
+        this.variants = null;
+        this.grid = new int[SIZE * SIZE];
+        this.rowUsed = new int[SIZE];
+        this.colUsed = new int[SIZE];
+        this.boxUsed = new int[SIZE];
+        this.trail = new int[SIZE * SIZE];
+        this.stop = new AtomicBoolean(false);
+    }
+    // method overloading, simplest solver (row order, ascending, no restarts)
+    public SudokuSolver() {
+        this("row order", ROW_ORDER, ASCENDING, false, 0, 0);
+    }
+
+    // getters
+    public String getName() {
+        return this.name;
+    }
+
+    public long getNodes() {
+        return this.nodes;
+    }
+
+    public int getRestarts() {
+        return this.restarts;
+    }
+
+    /**
+    * Inputs: extra rules for a variant puzzle, or null (ConstraintSet)
+    * Outputs: void
+    * Description: the row/column/box rules are always used; these are checked
+                   on top of them, only for the squares they depend on
+    */
+    public void setVariants(ConstraintSet variants) {
+        this.variants = variants;
+    }
+    
+    /**
+    * Inputs: none
+    * Outputs: the solvers portfolio() uses by default (SudokuSolver[])
+    */
+    public static SudokuSolver[] defaultPortfolio() {
+        SudokuSolver[] solvers = {
+            new SudokuSolver("row order", ROW_ORDER, ASCENDING, false, 0, 0),
+            new SudokuSolver("fewest choices", FEWEST_CHOICES, ASCENDING,
+                             false, 0, 0),
+            new SudokuSolver("fewest choices + singles", FEWEST_CHOICES,
+                             DESCENDING, true, 0, 0),
+            new SudokuSolver("random restarts", FEWEST_CHOICES, RANDOM,
+                             true, 64, 110)
+        };
+        return solvers;
+    }
+
+    /**
+    * Inputs: 6x6 int array of initial values (int[][])
+    * Outputs: a solution, or null if there is none or the solver was stopped
+               (int[][])
+    * Description: solves the puzzle using this solver's settings. A cancel()
+                   made before this call does not stop it.
+    */
+    public int[][] solve(int[][] intArray) {
+        return this.solve(intArray, new AtomicBoolean(false));
+    }
+
+    // method overloading, solves until the given flag is set
+    private int[][] solve(int[][] intArray, AtomicBoolean flag) {
+        this.stop = flag;
+        this.nodes = 0;
+        this.restarts = 0;
+        this.limit = this.restartLimit;
+        while (true) {
+            this.load(intArray);
+            int result = this.search();
+            if (result == SOLVED) {
+                int[][] solution = new int[SIZE][SIZE];
+                for (int k = 0; k < SIZE * SIZE; k++) {
+                    solution[k / SIZE][k % SIZE] = this.grid[k];
+                }
+                return solution;
+            }
+            if (result != OUT_OF_STEPS) {
+                return null;
+            }
+            // start over with twice as many steps allowed
+            this.restarts++;
+            this.limit *= 2;
+        }
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: void
+    * Description: asks the solver to stop; solve() will return null soon after.
+                   During portfolio() this stops the whole race.
+    */
+    public void cancel() {
+        this.stop.set(true);
+    }
+
+    /**
+    * Inputs: 6x6 int array of initial values (int[][]), solvers to race
+              (SudokuSolver[])
+    * Outputs: index of the solver that finished first, -1 if the puzzle has
+               no solution (int)
+    * Description: runs every solver on its own thread. The first one to finish
+                   stops the rest; its solution is in solution[0]. Returns only
+                   after every solver has stopped, even if interrupted (the
+                   interrupt is kept for the caller). If a solver throws, the
+                   rest are stopped and the exception is thrown from here.
+    */
+    public static int portfolio(int[][] intArray, SudokuSolver[] solvers,
+                                int[][][] solution) {
+        AtomicBoolean stop = new AtomicBoolean(false);
+        AtomicInteger winner = new AtomicInteger(-1);
+        ExecutorService pool = Executors.newFixedThreadPool(solvers.length);
+        ArrayList<Future<int[][]>> results = new ArrayList<Future<int[][]>>();
+        for (int i = 0; i < solvers.length; i++) {
+            final int which = i;
+            final SudokuSolver solver = solvers[i];
+            // set before the task starts, so a cancel() from now on stops the race
+            solver.stop = stop;
+            results.add(pool.submit(new Callable<int[][]>() {
+                public int[][] call() {
+                    // every solver checks the same flag
+                    int[][] result = solver.solve(intArray, stop);
+                    boolean finished = result != null || stop.get() == false;
+                    // only the first solver to finish gets to be the winner
+                    if (finished && winner.compareAndSet(-1, which)) {
+                        solution[0] = result;
+                        stop.set(true);
+                    }
+                    return result;
+                }
+            }));
+        }
+        pool.shutdown();
+        awaitRace(results, stop);
+        if (solution[0] == null) {
+            return -1;
+        }
+        return winner.get();
+    }
+
+    /**
+    * Inputs: the racing tasks (ArrayList<Future<int[][]>>), the flag they all
+              check (AtomicBoolean)
+    * Outputs: void
+    * Description: waits for every task to finish, even if interrupted (the
+                   interrupt is kept for the caller). If a task throws, the
+                   flag is set so the rest stop, and the first exception is
+                   thrown from here. Used by portfolio() and
+                   AnnealingSolver.race().
+    */
+    static void awaitRace(ArrayList<Future<int[][]>> results, AtomicBoolean stop) {
+        boolean interrupted = false;
+        Throwable failure = null;
+        for (Future<int[][]> result : results) {
+            while (true) {
+                try {
+                    result.get();
+                    break;
+                }
+                catch (InterruptedException e) {
+                    // stop the race, but still wait for the solvers to finish
+                    interrupted = true;
+                    stop.set(true);
+                }
+                catch (ExecutionException e) {
+                    stop.set(true);
+                    if (failure == null) {
+                        failure = e.getCause();
+                    }
+                    break;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        }
+        if (failure instanceof Error) {
+            throw (Error) failure;
+        }
+        if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    // solve each puzzle file in portfolio mode and print which strategy won
+    public static void main(String[] args) {
+        SudokuSolver[] solvers = defaultPortfolio();
+        // extra rules for variant puzzles, the same file SudokuGrid reads
+        String rulesFile = System.getProperty("sudoku.rules");
+        if (rulesFile != null) {
+            Constraint[] rules = SudokuGrid.readRules(rulesFile);
+            ConstraintSet variants = new ConstraintSet();
+            for (int i = 0; i < rules.length; i++) {
+                variants.add(rules[i]);
+            }
+            for (int i = 0; i < solvers.length; i++) {
+                solvers[i].setVariants(variants);
+            }
+        }
+        int[] wins = new int[solvers.length];
+        for (int p = 0; p < args.length; p++) {
+            int[][] intArray = SudokuGrid.readInFile(args[p]);
+            int[][][] solution = new int[1][][];
+            long start = System.nanoTime();
+            int winner = portfolio(intArray, solvers, solution);
+            double millis = (System.nanoTime() - start) / 1e6;
+            if (winner == -1) {
+                System.out.println(args[p] + ": no solution (" + millis + " ms)");
+                continue;
+            }
+            wins[winner]++;
+            SudokuSolver best = solvers[winner];
+            System.out.println(args[p] + ": " + best.getName() + " won in " +
+                               millis + " ms, " + best.getNodes() + " steps, " +
+                               best.getRestarts() + " restarts");
+        }
+        System.out.println("Wins per strategy:");
+        for (int i = 0; i < solvers.length; i++) {
+            System.out.println("  " + solvers[i].getName() + ": " + wins[i]);
+        }
+    }
+
+    /**
+    * Inputs: 6x6 int array of initial values (int[][])
+    * Outputs: void
+    * Description: resets the search state to the initial values
+    */
+    private void load(int[][] intArray) {
+        for (int k = 0; k < SIZE; k++) {
+            this.rowUsed[k] = 0;
+            this.colUsed[k] = 0;
+            this.boxUsed[k] = 0;
+        }
+        this.trailSize = 0;
+        for (int k = 0; k < SIZE * SIZE; k++) {
+            this.grid[k] = 0;
+        }
+        for (int i = 0; i < SIZE; i++) {
+            for (int j = 0; j < SIZE; j++) {
+                int k = i * SIZE + j;
+                int digit = intArray[i][j];
+                if (digit != 0) {
+                    if ((this.candidates(k) & (1 << digit)) == 0) {
+                        throw new IllegalArgumentException("Puzzle has repeat #s");
+                    }
+                    this.place(k, digit);
+                }
+            }
+        }
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: SOLVED, NO_SOLUTION, OUT_OF_STEPS or CANCELLED (int)
+    * Description: backtracking search from the current state
+    */
+    private int search() {
+        this.nodes++;
+        if ((this.nodes & 255) == 0 && this.stop.get()) {
+            return CANCELLED;
+        }
+        if (this.limit > 0 && this.nodes > this.limit) {
+            return OUT_OF_STEPS;
+        }
+        int trailStart = this.trailSize;
+        if (this.propagate && this.fillSingles() == false) {
+            this.undo(trailStart);
+            return NO_SOLUTION;
+        }
+        int cell = this.chooseCell();
+        if (cell == -1) {
+            return SOLVED;
+        }
+        int choices = this.candidates(cell);
+        int[] order = this.digitOrder();
+        for (int d = 0; d < SIZE; d++) {
+            int digit = order[d];
+            if ((choices & (1 << digit)) != 0) {
+                this.place(cell, digit);
+                int result = this.search();
+                if (result == SOLVED) {
+                    return SOLVED;
+                }
+                this.remove(cell, digit);
+                if (result != NO_SOLUTION) {
+                    this.undo(trailStart);
+                    return result;
+                }
+            }
+        }
+        this.undo(trailStart);
+        return NO_SOLUTION;
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: false if some empty square has no possible digit (boolean)
+    * Description: fills in every empty square that has only one possible digit,
+                   repeating until there are none left. The squares filled in
+                   are recorded in the trail so they can be undone.
+    */
+    private boolean fillSingles() {
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int k = 0; k < SIZE * SIZE; k++) {
+                if (this.grid[k] != 0) {
+                    continue;
+                }
+                int choices = this.candidates(k);
+                if (choices == 0) {
+                    return false;
+                }
+                if (Integer.bitCount(choices) == 1) {
+                    this.place(k, Integer.numberOfTrailingZeros(choices));
+                    this.trail[this.trailSize] = k;
+                    this.trailSize++;
+                    changed = true;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+    * Inputs: trail size to go back to (int)
+    * Outputs: void
+    * Description: empties the squares fillSingles() filled in since then
+    */
+    private void undo(int trailStart) {
+        while (this.trailSize > trailStart) {
+            this.trailSize--;
+            int k = this.trail[this.trailSize];
+            this.remove(k, this.grid[k]);
+        }
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: index of the next empty square to fill, -1 if there is none (int)
+    */
+    private int chooseCell() {
+        int best = -1;
+        int fewest = SIZE + 1;
+        for (int k = 0; k < SIZE * SIZE; k++) {
+            if (this.grid[k] != 0) {
+                continue;
+            }
+            if (this.cellOrder == ROW_ORDER) {
+                return k;
+            }
+            int count = Integer.bitCount(this.candidates(k));
+            if (count < fewest) {
+                best = k;
+                fewest = count;
+            }
+        }
+        return best;
+    }
+
+    /**
+    * Inputs: none
+    * Outputs: the digits 1-6 in the order to try them (int[])
+    */
+    private int[] digitOrder() {
+        int[] order = new int[SIZE];
+        for (int d = 0; d < SIZE; d++) {
+            if (this.valueOrder == DESCENDING) {
+                order[d] = SIZE - d;
+            }
+            else {
+                order[d] = d + 1;
+            }
+        }
+        if (this.valueOrder == RANDOM) {
+            for (int d = SIZE - 1; d > 0; d--) {
+                int swap = this.random.nextInt(d + 1);
+                int temp = order[d];
+                order[d] = order[swap];
+                order[swap] = temp;
+            }
+        }
+        return order;
+    }
+
+    /**
+    * Inputs: square index 0-35 (int)
+    * Outputs: bit set of digits not yet in the square's row, column or box and
+               allowed by the variant rules (int)
+    */
+    private int candidates(int k) {
+        int used = this.rowUsed[k / SIZE] | this.colUsed[k % SIZE] |
+                   this.boxUsed[boxIndex(k)];
+        if (this.variants != null) {
+            return ~used & this.variants.allowed(k, this.grid);
+        }
+        return ~used & 0x7e;
+    }
+
+    private static int boxIndex(int k) {
+        return (k / SIZE / 2) * 2 + (k % SIZE) / 3;
+    }
+
+    private void place(int k, int digit) {
+        int bit = 1 << digit;
+        this.grid[k] = digit;
+        this.rowUsed[k / SIZE] |= bit;
+        this.colUsed[k % SIZE] |= bit;
+        this.boxUsed[boxIndex(k)] |= bit;
+    }
+
+    private void remove(int k, int digit) {
+        int bit = 1 << digit;
+        this.grid[k] = 0;
+        this.rowUsed[k / SIZE] &= ~bit;
+        this.colUsed[k % SIZE] &= ~bit;
+        this.boxUsed[boxIndex(k)] &= ~bit;
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Author: Sara Kenefick
+ *
+ * PennKey: sarak24
+ *
+ * Description: a thermometer sudoku rule. The numbers along the thermometer must
+ * strictly increase from the bulb (the first square listed) to the tip.
+ *
+ */
+
+public class Thermometer implements Constraint {
+    
+    // fields
+    private int[] cells;
+    
+    // constructor
+    public Thermometer(int[] cells) {
+        if (cells.length > 6) {
+            throw new IllegalArgumentException("Thermometer longer than 6");
+        }
+        this.cells = cells;
+    }
+    
+    public int[] getCells() {
+        return this.cells;
+    }
+    
+    public boolean isViolated(int[] values) {
+        int last = 0;
+        for (int i = 0; i < this.cells.length; i++) {
+            int digit = values[this.cells[i]];
+            if (digit != 0) {
+                if (digit <= last) {
+                    return true;
+                }
+                last = digit;
+            }
+        }
+        return false;
+    }
+    
+    public int allowed(int cell, int[] values) {
+        int position = 0;
+        while (position < this.cells.length && this.cells[position] != cell) {
+            position++;
+        }
+        // a square not on the thermometer can hold any digit
+        if (position == this.cells.length) {
+            return 0x7e;
+        }
+        // room is needed for the squares before and after this one
+        int lowest = position + 1;
+        int highest = 6 - (this.cells.length - 1 - position);
+        for (int i = 0; i < this.cells.length; i++) {
+            int digit = values[this.cells[i]];
+            if (digit == 0 || i == position) {
+                continue;
+            }
+            if (i < position) {
+                lowest = Math.max(lowest, digit + position - i);
+            }
+            else {
+                highest = Math.min(highest, digit - (i - position));
+            }
+        }
+        int allowed = 0;
+        for (int digit = lowest; digit <= highest; digit++) {
+            allowed |= 1 << digit;
+        }
+        return allowed;
+    }
+    
+    public void highlight(Canvas canvas) {
+        canvas.setPenColor(AllDifferent.OTHER_COLOR);
+        for (int i = 0; i < this.cells.length; i++) {
+            canvas.filledRectangle(this.cells[i] % 6 + 0.5, 
+                                   this.cells[i] / 6 + 0.5, 0.5, 0.5);
+        }
+    }
+}